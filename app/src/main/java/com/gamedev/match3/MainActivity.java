@@ -1,18 +1,43 @@
 package com.gamedev.match3;
 
 import android.app.Activity;
+import android.content.pm.ApplicationInfo;
 import android.os.Build;
 import android.os.Bundle;
 import android.view.WindowManager;
 
+import com.gamedev.match3.engine.MoveLog;
+import com.gamedev.match3.engine.PerformanceMonitor;
+import com.gamedev.match3.engine.Trace;
 import com.gamedev.match3.view.GameView;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * 主Activity - 游戏入口
  */
 public class MainActivity extends Activity {
+    // 最近一局的对局记录，可拷出后用模拟器回放
+    private static final String MOVE_LOG_FILE = "last_game.mlog";
+    // 最近一次运行的性能统计，可拷出后与其他运行对比
+    private static final String PERFORMANCE_FILE = "performance.json";
+    // 调试版本记录的追踪区间，用Perfetto或chrome://tracing打开
+    private static final String TRACE_FILE = "trace.json";
+    // 约为60帧/秒下半分钟的区间数
+    private static final int TRACE_CAPACITY = 64 * 1024;
 
     private GameView gameView;
+    // 在后台依次写出对局记录、性能统计和追踪文件，文件IO和格式化不放在UI线程上
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -34,6 +59,11 @@ public class MainActivity extends Activity {
             getWindow().getDecorView().setSystemUiVisibility(flags);
         }
 
+        // 调试版本记录追踪区间
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            Trace.start(TRACE_CAPACITY);
+        }
+
         // 创建游戏视图
         gameView = new GameView(this);
         setContentView(gameView);
@@ -42,15 +72,82 @@ public class MainActivity extends Activity {
     @Override
     protected void onPause() {
         super.onPause();
+        gameView.pause();
+        saveMoveLog();
+        savePerformanceStats();
+        saveTrace();
+    }
+
+    /**
+     * 在后台线程保存对局记录；先在UI线程复制，恢复后游戏线程继续记录不影响写出的内容
+     */
+    private void saveMoveLog() {
+        MoveLog log = gameView.getMoveLog();
+        // 从存档恢复的对局要到下一局才开始记录，保留上次的文件
+        if (log.getWidth() == 0) return;
+
+        final MoveLog copy = new MoveLog(log);
+        final File file = new File(getFilesDir(), MOVE_LOG_FILE);
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                    copy.writeTo(out);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * 在后台线程保存性能统计；游戏循环已停止，在UI线程只复制统计，格式化和写出在后台进行
+     */
+    private void savePerformanceStats() {
+        final PerformanceMonitor stats = gameView.snapshotPerformanceStats();
+        final File file = new File(getFilesDir(), PERFORMANCE_FILE);
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try (OutputStream out = new FileOutputStream(file)) {
+                    out.write(stats.exportJson().getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * 在后台线程保存追踪区间，未开启追踪时跳过
+     */
+    private void saveTrace() {
+        if (!Trace.isEnabled()) return;
+
+        final File file = new File(getFilesDir(), TRACE_FILE);
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                    Trace.writeJson(out);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
     }
 
     @Override
     protected void onResume() {
         super.onResume();
+        gameView.resume();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        gameView.release();
+        // 已提交的写入仍会完成
+        ioExecutor.shutdown();
     }
 }
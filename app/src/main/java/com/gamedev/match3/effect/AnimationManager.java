@@ -1,32 +1,65 @@
 package com.gamedev.match3.effect;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import com.gamedev.match3.engine.ObjectPool;
+import com.gamedev.match3.engine.Trace;
+
+import java.util.Arrays;
 
 /**
  * 动画管理系统 - 管理所有游戏动画
+ *
+ * 活跃动画放在数组中，结束的动画由最后一个填补，删除为O(1)；顺序因此不固定。
+ * 每个格子上的动画按加入顺序串成链表，查询格子的动画为O(1)。
+ * 动画对象从对象池取出，结束后归还，稳定运行时不产生分配。
  */
 public class AnimationManager {
-    private List<TileAnimation> tileAnimations = new ArrayList<>();
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int boardWidth;
+    private final int boardHeight;
+    // 每个格子最早和最晚加入的动画，行优先
+    private final TileAnimation[] cellFirst;
+    private final TileAnimation[] cellLast;
+
+    private TileAnimation[] animations = new TileAnimation[INITIAL_CAPACITY];
+    private int count = 0;
+
+    private final ObjectPool<TileAnimation> pool = new ObjectPool<TileAnimation>(INITIAL_CAPACITY) {
+        @Override
+        protected TileAnimation create() {
+            return new TileAnimation();
+        }
+
+        @Override
+        protected void reset(TileAnimation anim) {
+            anim.reset();
+        }
+    };
+
+    public AnimationManager(int boardWidth, int boardHeight) {
+        if (boardWidth <= 0 || boardHeight <= 0) {
+            throw new IllegalArgumentException("Invalid board size: " + boardWidth + "x" + boardHeight);
+        }
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.cellFirst = new TileAnimation[boardWidth * boardHeight];
+        this.cellLast = new TileAnimation[boardWidth * boardHeight];
+    }
 
     /**
      * 添加瓷砖移动动画
      */
     public void addMoveAnimation(int row, int col, float startX, float startY,
                                 float targetX, float targetY) {
-        TileAnimation anim = new TileAnimation(row, col, startX, startY, 
-                                              targetX, targetY, 0);
-        tileAnimations.add(anim);
+        add(row, col, startX, startY, targetX, targetY, 0);
     }
 
     /**
      * 添加消除动画
      */
     public void addDismissAnimation(int row, int col, float x, float y) {
-        TileAnimation anim = new TileAnimation(row, col, x, y, x, y, 1);
+        TileAnimation anim = add(row, col, x, y, x, y, 1);
         anim.duration = 0.4f;
-        tileAnimations.add(anim);
     }
 
     /**
@@ -34,44 +67,128 @@ public class AnimationManager {
      */
     public void addJumpAnimation(int row, int col, float startX, float startY,
                                 float targetX, float targetY) {
-        TileAnimation anim = new TileAnimation(row, col, startX, startY,
-                                              targetX, targetY, 2);
+        TileAnimation anim = add(row, col, startX, startY, targetX, targetY, 2);
         anim.duration = 0.5f;
-        tileAnimations.add(anim);
+    }
+
+    private TileAnimation add(int row, int col, float startX, float startY,
+                              float targetX, float targetY, int type) {
+        checkCell(row, col);
+        TileAnimation anim = pool.obtain();
+        anim.set(row, col, startX, startY, targetX, targetY, type);
+
+        if (count == animations.length) {
+            TileAnimation[] grown = new TileAnimation[count * 2];
+            System.arraycopy(animations, 0, grown, 0, count);
+            animations = grown;
+        }
+        anim.index = count;
+        animations[count++] = anim;
+
+        // 接到格子链表末尾
+        int cell = row * boardWidth + col;
+        TileAnimation last = cellLast[cell];
+        anim.prevInCell = last;
+        if (last != null) {
+            last.nextInCell = anim;
+        } else {
+            cellFirst[cell] = anim;
+        }
+        cellLast[cell] = anim;
+        return anim;
     }
 
     /**
      * 更新所有动画
      */
     public void update(float deltaTime) {
-        Iterator<TileAnimation> iterator = tileAnimations.iterator();
-        while (iterator.hasNext()) {
-            TileAnimation anim = iterator.next();
+        long span = Trace.begin();
+        // 倒序遍历，填补到当前位置的最后一个动画已经更新过
+        for (int i = count - 1; i >= 0; i--) {
+            TileAnimation anim = animations[i];
             anim.update(deltaTime);
             if (anim.isComplete()) {
-                iterator.remove();
+                remove(anim);
             }
         }
+        Trace.end("AnimationManager.update", span);
+    }
+
+    private void remove(TileAnimation anim) {
+        // 从格子链表中摘除
+        int cell = anim.tileRow * boardWidth + anim.tileCol;
+        if (anim.prevInCell != null) {
+            anim.prevInCell.nextInCell = anim.nextInCell;
+        } else {
+            cellFirst[cell] = anim.nextInCell;
+        }
+        if (anim.nextInCell != null) {
+            anim.nextInCell.prevInCell = anim.prevInCell;
+        } else {
+            cellLast[cell] = anim.prevInCell;
+        }
+
+        // 最后一个动画填补空位
+        TileAnimation moved = animations[--count];
+        animations[anim.index] = moved;
+        moved.index = anim.index;
+        animations[count] = null;
+
+        pool.release(anim);
+    }
+
+    /**
+     * 第i个活跃动画，0 <= i < getAnimationCount()
+     */
+    public TileAnimation getAnimation(int i) {
+        return animations[i];
     }
 
     /**
-     * 获取动画列表
+     * 格子上最早加入的活跃动画，没有时返回null
      */
-    public List<TileAnimation> getAnimations() {
-        return tileAnimations;
+    public TileAnimation getCellAnimation(int row, int col) {
+        checkCell(row, col);
+        return cellFirst[row * boardWidth + col];
+    }
+
+    /**
+     * 格子上是否有活跃动画
+     */
+    public boolean hasAnimation(int row, int col) {
+        return getCellAnimation(row, col) != null;
+    }
+
+    private void checkCell(int row, int col) {
+        if (row < 0 || row >= boardHeight || col < 0 || col >= boardWidth) {
+            throw new IndexOutOfBoundsException("Cell out of board: " + row + "," + col);
+        }
     }
 
     /**
      * 清空所有动画
      */
     public void clear() {
-        tileAnimations.clear();
+        for (int i = 0; i < count; i++) {
+            pool.release(animations[i]);
+            animations[i] = null;
+        }
+        count = 0;
+        Arrays.fill(cellFirst, null);
+        Arrays.fill(cellLast, null);
     }
 
     /**
      * 获取动画数量
      */
     public int getAnimationCount() {
-        return tileAnimations.size();
+        return count;
+    }
+
+    /**
+     * 动画对象池，可查看命中率和峰值
+     */
+    public ObjectPool<TileAnimation> getPool() {
+        return pool;
     }
 }
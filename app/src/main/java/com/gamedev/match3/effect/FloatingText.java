@@ -0,0 +1,52 @@
+package com.gamedev.match3.effect;
+
+import com.gamedev.match3.engine.HudFormatter;
+
+/**
+ * 浮动文字特效 - 显示分数获取
+ *
+ * 文字写入复用的字符缓冲，不创建字符串；对象由FloatingTextSystem的对象池管理。
+ */
+public class FloatingText {
+    public float x, y;
+    public final HudFormatter text = new HudFormatter(8);
+    public float alpha = 1.0f;
+    public float lifespan = 1.0f;
+    public int color;
+
+    /**
+     * 供对象池创建，使用前调用set
+     */
+    public FloatingText() {
+    }
+
+    /**
+     * 设置为"+分数"，其余状态恢复为初始值
+     */
+    public void set(float x, float y, int score, int color) {
+        reset();
+        this.x = x;
+        this.y = y;
+        this.color = color;
+        text.append('+').append(score);
+    }
+
+    /**
+     * 恢复为初始状态，归还对象池时调用
+     */
+    public void reset() {
+        text.clear();
+        alpha = 1.0f;
+        lifespan = 1.0f;
+    }
+
+    public void update(float deltaTime) {
+        y -= 50 * deltaTime; // 向上移动
+        lifespan -= deltaTime;
+        alpha = Math.max(0, lifespan);
+    }
+
+    public boolean isDead() {
+        return lifespan <= 0;
+    }
+}
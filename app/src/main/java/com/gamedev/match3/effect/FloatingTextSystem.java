@@ -1,81 +1,74 @@
 package com.gamedev.match3.effect;
 
-import android.graphics.Canvas;
-import android.graphics.Paint;
-
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
-/**
- * 浮动文字特效 - 显示分数获取
- */
-public class FloatingText {
-    public float x, y;
-    public String text;
-    public float alpha = 1.0f;
-    public float lifespan = 1.0f;
-    public int color;
-
-    public FloatingText(float x, float y, String text, int color) {
-        this.x = x;
-        this.y = y;
-        this.text = text;
-        this.color = color;
-    }
-
-    public void update(float deltaTime) {
-        y -= 50 * deltaTime; // 向上移动
-        lifespan -= deltaTime;
-        alpha = Math.max(0, lifespan);
-    }
-
-    public boolean isDead() {
-        return lifespan <= 0;
-    }
-}
+import com.gamedev.match3.engine.ObjectPool;
 
 /**
  * 浮动文字系统
+ *
+ * 活跃文字放在数组中，结束的文字由最后一个填补；文字对象从对象池取出，结束后归还，
+ * 稳定运行时不产生分配。只保存状态，由FrameRenderer交给绘制目标绘制。
  */
 public class FloatingTextSystem {
-    private List<FloatingText> texts = new ArrayList<>();
-    private Paint paint;
+    /** 文字大小（像素） */
+    public static final float TEXT_SIZE = 24;
+    private static final int SCORE_COLOR = 0xFFFFD700;
+    private static final int INITIAL_CAPACITY = 64;
 
-    public FloatingTextSystem() {
-        paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paint.setTextSize(24);
-    }
+    private FloatingText[] texts = new FloatingText[INITIAL_CAPACITY];
+    private int count = 0;
+
+    private final ObjectPool<FloatingText> pool = new ObjectPool<FloatingText>(INITIAL_CAPACITY) {
+        @Override
+        protected FloatingText create() {
+            return new FloatingText();
+        }
+
+        @Override
+        protected void reset(FloatingText text) {
+            text.reset();
+        }
+    };
 
     public void addScore(float x, float y, int score) {
-        FloatingText text = new FloatingText(x, y, "+" + score, 0xFFFFD700);
-        texts.add(text);
+        FloatingText text = pool.obtain();
+        text.set(x, y, score, SCORE_COLOR);
+        if (count == texts.length) {
+            FloatingText[] grown = new FloatingText[count * 2];
+            System.arraycopy(texts, 0, grown, 0, count);
+            texts = grown;
+        }
+        texts[count++] = text;
     }
 
     public void update(float deltaTime) {
-        Iterator<FloatingText> iterator = texts.iterator();
-        while (iterator.hasNext()) {
-            FloatingText text = iterator.next();
+        // 倒序遍历，填补到当前位置的最后一个文字已经更新过
+        for (int i = count - 1; i >= 0; i--) {
+            FloatingText text = texts[i];
             text.update(deltaTime);
             if (text.isDead()) {
-                iterator.remove();
+                texts[i] = texts[--count];
+                texts[count] = null;
+                pool.release(text);
             }
         }
     }
 
-    public void draw(Canvas canvas) {
-        for (FloatingText text : texts) {
-            paint.setColor(text.color);
-            paint.setAlpha((int) (text.alpha * 255));
-            canvas.drawText(text.text, text.x, text.y, paint);
-        }
+    /**
+     * 第i个活跃文字，0 <= i < getTextCount()
+     */
+    public FloatingText getText(int i) {
+        return texts[i];
     }
 
-    public List<FloatingText> getTexts() {
-        return texts;
+    public int getTextCount() {
+        return count;
     }
 
     public void clear() {
-        texts.clear();
+        for (int i = 0; i < count; i++) {
+            pool.release(texts[i]);
+            texts[i] = null;
+        }
+        count = 0;
     }
 }
@@ -0,0 +1,199 @@
+package com.gamedev.match3.effect;
+
+import com.gamedev.match3.engine.Trace;
+
+import java.util.Arrays;
+
+/**
+ * 粒子批次 - 按颜色、透明度和大小把粒子分组，每组用一次Canvas.drawPoints绘制
+ *
+ * 透明度量化为ALPHA_LEVELS级，半径量化为SIZE_STEP像素一级，批次数只取决于
+ * 同时出现的颜色和级别数，不随粒子数增长。分组为两遍计数排序，不产生分配。
+ * 每帧最多区分MAX_COLORS种颜色，之后出现的颜色并入最后一种。
+ */
+public class ParticleBatcher {
+    public static final int ALPHA_LEVELS = 8;
+    public static final int SIZE_LEVELS = 8;
+    public static final float SIZE_STEP = 2f;
+    public static final int MAX_COLORS = 16;
+
+    private static final int BUCKETS = MAX_COLORS * ALPHA_LEVELS * SIZE_LEVELS;
+
+    // 本帧出现的颜色（不含透明度）
+    private final int[] colors = new int[MAX_COLORS];
+    private int colorCount = 0;
+
+    private final int[] bucketCounts = new int[BUCKETS];
+    private final int[] bucketCursor = new int[BUCKETS];
+    private final int[] keys;
+    // 按批次排好的点坐标 x0, y0, x1, y1 ...
+    private final float[] points;
+
+    // 批次：在points中的起始下标、坐标数、颜色（含透明度）、点的直径
+    private final int[] batchOffset = new int[BUCKETS];
+    private final int[] batchLength = new int[BUCKETS];
+    private final int[] batchColor = new int[BUCKETS];
+    private final float[] batchWidth = new float[BUCKETS];
+    private int batchCount = 0;
+
+    // 所有点（含半径）的外接矩形，没有粒子时为空
+    private float boundsLeft, boundsTop, boundsRight, boundsBottom;
+
+    /**
+     * @param capacity 粒子容量，与ParticleSystem.getCapacity()相同
+     */
+    public ParticleBatcher(int capacity) {
+        this.keys = new int[capacity];
+        this.points = new float[capacity * 2];
+    }
+
+    /**
+     * 把当前所有粒子分组
+     *
+     * @param offsetX 粒子坐标到屏幕坐标的偏移
+     * @param lead    按速度外推的时间（秒）
+     * @return 批次数，即需要的绘制调用数
+     */
+    public int build(ParticleSystem particles, float offsetX, float offsetY, float lead) {
+        long span = Trace.begin();
+        int count = Math.min(particles.getParticleCount(), keys.length);
+        float[] x = particles.getX();
+        float[] y = particles.getY();
+        float[] vx = particles.getVelocityX();
+        float[] vy = particles.getVelocityY();
+        float[] life = particles.getLife();
+        float[] size = particles.getSize();
+        int[] color = particles.getColor();
+
+        // 第一遍：计算每个粒子的分组并计数
+        Arrays.fill(bucketCounts, 0);
+        colorCount = 0;
+        for (int i = 0; i < count; i++) {
+            int alphaLevel = Math.min(ALPHA_LEVELS - 1, (int) (life[i] * ALPHA_LEVELS));
+            int sizeLevel = Math.min(SIZE_LEVELS - 1, (int) (size[i] / SIZE_STEP));
+            int key = (colorSlot(color[i]) * ALPHA_LEVELS + alphaLevel) * SIZE_LEVELS + sizeLevel;
+            keys[i] = key;
+            bucketCounts[key]++;
+        }
+
+        // 非空分组按顺序排成批次
+        batchCount = 0;
+        int offset = 0;
+        for (int key = 0; key < colorCount * ALPHA_LEVELS * SIZE_LEVELS; key++) {
+            int n = bucketCounts[key];
+            if (n == 0) continue;
+            int alphaLevel = key / SIZE_LEVELS % ALPHA_LEVELS;
+            int alpha = (int) ((alphaLevel + 0.5f) * 255 / ALPHA_LEVELS);
+            bucketCursor[key] = offset;
+            batchOffset[batchCount] = offset;
+            batchLength[batchCount] = n * 2;
+            batchColor[batchCount] = (colors[key / (SIZE_LEVELS * ALPHA_LEVELS)] & 0x00FFFFFF) | (alpha << 24);
+            // 级别中间值作为半径，点的宽度为直径
+            batchWidth[batchCount] = (key % SIZE_LEVELS + 0.5f) * SIZE_STEP * 2;
+            batchCount++;
+            offset += n * 2;
+        }
+
+        // 第二遍：把坐标写到所在批次，同时统计外接矩形
+        float left = Float.MAX_VALUE, top = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE, bottom = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            int position = bucketCursor[keys[i]];
+            float px = offsetX + x[i] + vx[i] * lead;
+            float py = offsetY + y[i] + vy[i] * lead;
+            points[position] = px;
+            points[position + 1] = py;
+            bucketCursor[keys[i]] = position + 2;
+            left = Math.min(left, px);
+            top = Math.min(top, py);
+            right = Math.max(right, px);
+            bottom = Math.max(bottom, py);
+        }
+        if (count == 0) {
+            left = top = right = bottom = 0;
+        } else {
+            // 量化后的半径不超过最大一级的上界
+            float radius = SIZE_LEVELS * SIZE_STEP;
+            left -= radius;
+            top -= radius;
+            right += radius;
+            bottom += radius;
+        }
+        boundsLeft = left;
+        boundsTop = top;
+        boundsRight = right;
+        boundsBottom = bottom;
+        Trace.end("ParticleBatcher.build", span);
+        return batchCount;
+    }
+
+    private int colorSlot(int color) {
+        int rgb = color & 0x00FFFFFF;
+        for (int i = 0; i < colorCount; i++) {
+            if (colors[i] == rgb) return i;
+        }
+        if (colorCount == MAX_COLORS) {
+            return MAX_COLORS - 1;
+        }
+        colors[colorCount] = rgb;
+        return colorCount++;
+    }
+
+    /**
+     * 上一次build的批次数
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * 上一次build的所有粒子的外接矩形，用于计算需要重绘的区域；没有粒子时宽高为0
+     */
+    public float getBoundsLeft() {
+        return boundsLeft;
+    }
+
+    public float getBoundsTop() {
+        return boundsTop;
+    }
+
+    public float getBoundsRight() {
+        return boundsRight;
+    }
+
+    public float getBoundsBottom() {
+        return boundsBottom;
+    }
+
+    public float[] getPoints() {
+        return points;
+    }
+
+    /**
+     * 批次在getPoints()中的起始下标
+     */
+    public int getBatchOffset(int batch) {
+        return batchOffset[batch];
+    }
+
+    /**
+     * 批次的坐标个数（点数的两倍），即drawPoints的count参数
+     */
+    public int getBatchLength(int batch) {
+        return batchLength[batch];
+    }
+
+    /**
+     * 批次颜色，已包含量化后的透明度
+     */
+    public int getBatchColor(int batch) {
+        return batchColor[batch];
+    }
+
+    /**
+     * 批次中点的直径，即画笔的线宽
+     */
+    public float getBatchWidth(int batch) {
+        return batchWidth[batch];
+    }
+}
@@ -1,34 +1,85 @@
 package com.gamedev.match3.effect;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import com.gamedev.match3.engine.FastRandom;
+import com.gamedev.match3.engine.Trace;
 
 /**
  * 粒子系统 - 管理所有粒子效果
+ *
+ * 粒子按属性存放在固定容量的并行数组中（结构数组），前getParticleCount()个有效。
+ * 生成不产生分配，死亡的粒子由最后一个粒子填补，删除为O(1)；粒子顺序因此不固定。
+ * 更新循环没有分支和对象访问，便于编译器自动向量化。
  */
 public class ParticleSystem {
-    private List<Particle> particles;
-    private static final int MAX_PARTICLES = 500; // 防止过多粒子
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final float GRAVITY = 0.3f;
+    private static final float FADE_RATE = 1.5f;  // 每秒减少的生命周期
+    private static final float SHRINK = 0.98f;    // 每1/60秒的缩小比例
+    // 爆炸方向表，代替每个粒子的Math.cos/sin
+    private static final int DIRECTIONS = 256;
+    private static final float[] DIRECTION_X = new float[DIRECTIONS];
+    private static final float[] DIRECTION_Y = new float[DIRECTIONS];
+
+    static {
+        for (int i = 0; i < DIRECTIONS; i++) {
+            double angle = i * Math.PI * 2 / DIRECTIONS;
+            DIRECTION_X[i] = (float) Math.cos(angle);
+            DIRECTION_Y[i] = (float) Math.sin(angle);
+        }
+    }
+
+    private final int capacity;
+    private final float[] x;
+    private final float[] y;
+    private final float[] vx;
+    private final float[] vy;
+    private final float[] life;   // 剩余生命周期（0-1），也是透明度
+    private final float[] size;
+    private final int[] color;
+    private int count = 0;
+    // 容量已满时丢弃的粒子数
+    private long dropped = 0;
+
+    // 粒子不影响对局结果，使用独立的随机序列，避免Math.random的共享原子状态
+    private final FastRandom random = new FastRandom(System.nanoTime());
 
     public ParticleSystem() {
-        this.particles = new ArrayList<>(MAX_PARTICLES);
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ParticleSystem(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.vx = new float[capacity];
+        this.vy = new float[capacity];
+        this.life = new float[capacity];
+        this.size = new float[capacity];
+        this.color = new int[capacity];
     }
 
     /**
-     * 在指定位置创建爆炸效果
+     * 在指定位置创建爆炸效果；容量不足时只生成放得下的部分
      */
     public void createExplosion(float x, float y, int color, int count) {
-        if (particles.size() >= MAX_PARTICLES) return;
-
-        for (int i = 0; i < count; i++) {
-            double angle = Math.random() * Math.PI * 2;
-            float speed = 150 + (float) (Math.random() * 150);
-            float vx = (float) (Math.cos(angle) * speed);
-            float vy = (float) (Math.sin(angle) * speed);
+        int spawn = Math.min(count, capacity - this.count);
+        dropped += count - spawn;
 
-            Particle p = new Particle(x, y, vx, vy, color, 8 + (float) Math.random() * 4);
-            particles.add(p);
+        for (int i = 0; i < spawn; i++) {
+            int direction = random.nextInt(DIRECTIONS);
+            float speed = 150 + random.nextFloat() * 150;
+            int index = this.count++;
+            this.x[index] = x;
+            this.y[index] = y;
+            vx[index] = DIRECTION_X[direction] * speed;
+            vy[index] = DIRECTION_Y[direction] * speed;
+            life[index] = 1.0f;
+            size[index] = 8 + random.nextFloat() * 4;
+            this.color[index] = color;
         }
     }
 
@@ -43,34 +94,92 @@ public class ParticleSystem {
      * 更新所有粒子
      */
     public void update(float deltaTime) {
-        Iterator<Particle> iterator = particles.iterator();
-        while (iterator.hasNext()) {
-            Particle p = iterator.next();
-            p.update(deltaTime);
-            if (p.isDead()) {
-                iterator.remove();
-            }
+        long span = Trace.begin();
+        int n = count;
+        float gravity = GRAVITY * deltaTime;
+        float fade = FADE_RATE * deltaTime;
+        // 按经过的时间缩小，与模拟步长无关
+        float shrink = (float) Math.pow(SHRINK, deltaTime * 60);
+        for (int i = 0; i < n; i++) {
+            vy[i] += gravity;
+            x[i] += vx[i] * deltaTime;
+            y[i] += vy[i] * deltaTime;
+            life[i] -= fade;
+            size[i] *= shrink;
         }
-    }
 
-    /**
-     * 获取所有粒子
-     */
-    public List<Particle> getParticles() {
-        return particles;
+        // 倒序删除，移到当前位置的最后一个粒子已经检查过
+        for (int i = n - 1; i >= 0; i--) {
+            if (life[i] <= 0) {
+                n--;
+                x[i] = x[n];
+                y[i] = y[n];
+                vx[i] = vx[n];
+                vy[i] = vy[n];
+                life[i] = life[n];
+                size[i] = size[n];
+                color[i] = color[n];
+            }
+        }
+        count = n;
+        Trace.end("ParticleSystem.update", span);
     }
 
     /**
      * 清空所有粒子
      */
     public void clear() {
-        particles.clear();
+        count = 0;
     }
 
     /**
      * 获取粒子数量
      */
     public int getParticleCount() {
-        return particles.size();
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 容量已满时丢弃的粒子总数
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    // 以下数组只有前getParticleCount()个有效，只能读取
+
+    public float[] getX() {
+        return x;
+    }
+
+    public float[] getY() {
+        return y;
+    }
+
+    public float[] getVelocityX() {
+        return vx;
+    }
+
+    public float[] getVelocityY() {
+        return vy;
+    }
+
+    /**
+     * 剩余生命周期（0-1），即透明度
+     */
+    public float[] getLife() {
+        return life;
+    }
+
+    public float[] getSize() {
+        return size;
+    }
+
+    public int[] getColor() {
+        return color;
     }
 }
@@ -20,8 +20,28 @@ public class TileAnimation {
     public float alpha = 1.0f;
     public float rotation = 0;
 
+    // AnimationManager使用：在活跃数组中的位置，同一格子上按加入顺序的前后动画
+    int index = -1;
+    TileAnimation prevInCell;
+    TileAnimation nextInCell;
+
+    /**
+     * 供对象池创建，使用前调用set
+     */
+    public TileAnimation() {
+    }
+
     public TileAnimation(int row, int col, float startX, float startY, 
                         float targetX, float targetY, int type) {
+        set(row, col, startX, startY, targetX, targetY, type);
+    }
+
+    /**
+     * 设置动画参数，其余状态恢复为初始值
+     */
+    public void set(int row, int col, float startX, float startY,
+                    float targetX, float targetY, int type) {
+        reset();
         this.tileRow = row;
         this.tileCol = col;
         this.startX = startX;
@@ -33,6 +53,21 @@ public class TileAnimation {
         this.animationType = type;
     }
 
+    /**
+     * 恢复为初始状态，归还对象池时调用
+     */
+    public void reset() {
+        duration = 0.3f;
+        elapsed = 0;
+        isActive = true;
+        scale = 1.0f;
+        alpha = 1.0f;
+        rotation = 0;
+        index = -1;
+        prevInCell = null;
+        nextInCell = null;
+    }
+
     /**
      * 更新动画
      */
@@ -0,0 +1,73 @@
+package com.gamedev.match3.engine;
+
+/**
+ * 棋盘帧 - 引擎在某个逻辑步骤之后发布的完整棋盘和对局进度，供渲染线程读取
+ *
+ * 帧由BoardFrameBuffer循环复用：读取方拿到的帧在下一次acquire之前不会被修改。
+ * 格子按列优先存放，与GameEngine相同。
+ */
+public final class BoardFrame {
+    private final int width;
+    private final int height;
+    final byte[] types;
+    final byte[] flags;
+    int score;
+    int level;
+    int moves;
+    boolean gameRunning;
+    GameEngine.CascadeStep cascadeStep = GameEngine.CascadeStep.IDLE;
+    long sequence;
+
+    BoardFrame(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.types = new byte[width * height];
+        this.flags = new byte[width * height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getType(int row, int col) {
+        return types[col * height + row];
+    }
+
+    /**
+     * 格子的变化标记，见GameEngine.FLAG_FELL和FLAG_SPAWNED
+     */
+    public int getFlags(int row, int col) {
+        return flags[col * height + row];
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public boolean isGameRunning() {
+        return gameRunning;
+    }
+
+    public GameEngine.CascadeStep getCascadeStep() {
+        return cascadeStep;
+    }
+
+    /**
+     * 发布序号，每次发布加一；序号不变说明棋盘没有变化，可以跳过重绘
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
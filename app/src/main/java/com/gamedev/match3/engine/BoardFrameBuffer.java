@@ -0,0 +1,50 @@
+package com.gamedev.match3.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 三缓冲棋盘帧 - 一个写入线程发布，一个读取线程获取，双方都不加锁
+ *
+ * 写入方独占back帧，读取方独占front帧，middle保存最近发布的帧。
+ * 发布和获取都是对middle的一次原子交换，读取方永远拿到完整写好的帧，
+ * 写入方也不必等待读取方。middle的DIRTY位表示其中的帧还没有被读取。
+ */
+final class BoardFrameBuffer {
+    private static final int DIRTY = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final BoardFrame[] frames = new BoardFrame[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+
+    BoardFrameBuffer(int width, int height) {
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new BoardFrame(width, height);
+        }
+    }
+
+    /**
+     * 写入方正在填充的帧
+     */
+    BoardFrame back() {
+        return frames[back];
+    }
+
+    /**
+     * 发布back帧，换回上一个middle帧继续写
+     */
+    void publish() {
+        back = middle.getAndSet(back | DIRTY) & INDEX_MASK;
+    }
+
+    /**
+     * 获取最近发布的帧；没有新帧时返回上次获取的帧
+     */
+    BoardFrame acquire() {
+        if ((middle.get() & DIRTY) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return frames[front];
+    }
+}
@@ -0,0 +1,101 @@
+package com.gamedev.match3.engine;
+
+import java.util.Arrays;
+
+/**
+ * 压缩棋盘 - 每格3位，只保存格子类型
+ *
+ * 每个long存放21格(63位)，格子不跨long，6x8棋盘占3个long。
+ * 只含棋盘，不含分数等对局进度；用于快照、搜索和状态哈希，复制时不产生分配。
+ */
+public final class BoardState {
+    static final int BITS_PER_CELL = 3;
+    static final int CELLS_PER_WORD = 64 / BITS_PER_CELL;
+    private static final long CELL_MASK = (1L << BITS_PER_CELL) - 1;
+
+    private final int width;
+    private final int height;
+    final long[] words;
+
+    public BoardState(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.words = new long[(width * height + CELLS_PER_WORD - 1) / CELLS_PER_WORD];
+    }
+
+    public BoardState(BoardState other) {
+        this(other.width, other.height);
+        copyFrom(other);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int get(int row, int col) {
+        return getCell(row * width + col);
+    }
+
+    /**
+     * 按格子下标(row * width + col)读取类型
+     */
+    public int getCell(int cell) {
+        int shift = (cell % CELLS_PER_WORD) * BITS_PER_CELL;
+        return (int) ((words[cell / CELLS_PER_WORD] >>> shift) & CELL_MASK);
+    }
+
+    public void set(int row, int col, int type) {
+        setCell(row * width + col, type);
+    }
+
+    public void setCell(int cell, int type) {
+        int word = cell / CELLS_PER_WORD;
+        int shift = (cell % CELLS_PER_WORD) * BITS_PER_CELL;
+        words[word] = (words[word] & ~(CELL_MASK << shift)) | (((long) type & CELL_MASK) << shift);
+    }
+
+    /**
+     * 复制另一个同样大小的棋盘
+     */
+    public void copyFrom(BoardState other) {
+        checkSize(other.width, other.height);
+        System.arraycopy(other.words, 0, words, 0, words.length);
+    }
+
+    void checkSize(int width, int height) {
+        if (width != this.width || height != this.height) {
+            throw new IllegalArgumentException("Board size mismatch: " + width + "x" + height
+                    + " vs " + this.width + "x" + this.height);
+        }
+    }
+
+    /**
+     * 64位哈希，供置换表等需要低碰撞率的场合使用
+     */
+    public long longHash() {
+        long hash = width * 31L + height;
+        for (long word : words) {
+            hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof BoardState)) return false;
+        BoardState other = (BoardState) obj;
+        return width == other.width && height == other.height && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = longHash();
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
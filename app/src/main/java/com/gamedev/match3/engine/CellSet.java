@@ -0,0 +1,72 @@
+package com.gamedev.match3.engine;
+
+/**
+ * 格子集合 - 以格子下标(row * width + col)保存，无装箱、无额外分配
+ * 对外只读，内容由GameEngine复用和维护
+ */
+public class CellSet {
+    private final int width;
+    private final int[] cells;
+    private final long[] bits;
+    private int size = 0;
+
+    CellSet(int width, int height) {
+        int capacity = width * height;
+        this.width = width;
+        this.cells = new int[capacity];
+        this.bits = new long[(capacity + 63) >>> 6];
+    }
+
+    /**
+     * 添加格子，已存在时忽略
+     */
+    void add(int cell) {
+        long bit = 1L << cell;
+        int word = cell >>> 6;
+        if ((bits[word] & bit) != 0) return;
+        bits[word] |= bit;
+        cells[size++] = cell;
+    }
+
+    /**
+     * 清空集合 - 只清除已使用的位
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            int cell = cells[i];
+            bits[cell >>> 6] &= ~(1L << cell);
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 获取第index个格子的下标
+     */
+    public int get(int index) {
+        return cells[index];
+    }
+
+    public int getRow(int index) {
+        return cells[index] / width;
+    }
+
+    public int getCol(int index) {
+        return cells[index] % width;
+    }
+
+    public boolean containsCell(int cell) {
+        return cell >= 0 && cell < cells.length && (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public boolean contains(int row, int col) {
+        return col >= 0 && col < width && containsCell(row * width + col);
+    }
+}
@@ -0,0 +1,60 @@
+package com.gamedev.match3.engine;
+
+/**
+ * 快速随机数生成器 - SplitMix64算法，状态只有一个long
+ *
+ * 不加锁、不使用原子变量，只能在单个线程内使用。
+ * 相同种子产生相同序列，状态可以读出并恢复，用于对局回放。
+ */
+public final class FastRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public FastRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * 重新设置种子，之后的序列与new FastRandom(seed)相同
+     */
+    public void setSeed(long seed) {
+        state = seed;
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * [0, bound)内的整数，用高32位乘法映射代替取模
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * [0, 1)内的浮点数
+     */
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * [0, 1)内的双精度浮点数
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,147 @@
+package com.gamedev.match3.engine;
+
+/**
+ * 帧时钟 - 固定步长模拟、帧节拍和抖动统计，时间一律使用System.nanoTime或vsync时间戳
+ *
+ * 每帧经过的时间累加到accumulator，按固定步长取出若干步模拟，剩余不足一步的部分
+ * 作为插值系数交给绘制，模拟结果与帧率无关。
+ * 帧节拍按目标周期累加下一帧的时间，vsync频率高于目标帧率时跳过部分vsync，
+ * 例如120Hz屏幕上以90Hz运行时每4个vsync绘制3帧。
+ */
+public class FrameClock {
+    // 卡顿后最多补算的步数，超出的时间直接丢弃，避免补算越来越慢
+    private static final int MAX_STEPS_PER_FRAME = 8;
+    // 统计抖动的最近帧数
+    private static final int JITTER_WINDOW = 120;
+
+    private final long stepNanos;
+    private long periodNanos;
+    private int targetRate;
+
+    private long lastFrameNanos = -1;
+    private long accumulator = 0;
+    private long nextFrameNanos = 0;
+
+    // 最近帧间隔与目标周期之差的绝对值（纳秒）
+    private final long[] jitter = new long[JITTER_WINDOW];
+    private int jitterCount = 0;
+    private int nextJitter = 0;
+
+    /**
+     * @param simulationRate 每秒模拟步数
+     * @param targetRate     目标帧率，例如60、90、120
+     */
+    public FrameClock(int simulationRate, int targetRate) {
+        if (simulationRate <= 0) {
+            throw new IllegalArgumentException("Invalid simulation rate: " + simulationRate);
+        }
+        this.stepNanos = 1_000_000_000L / simulationRate;
+        setTargetRate(targetRate);
+    }
+
+    public void setTargetRate(int rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Invalid frame rate: " + rate);
+        }
+        this.targetRate = rate;
+        this.periodNanos = 1_000_000_000L / rate;
+    }
+
+    public int getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * 暂停恢复后调用，丢弃暂停期间的时间
+     */
+    public void reset() {
+        lastFrameNanos = -1;
+        accumulator = 0;
+        nextFrameNanos = 0;
+        jitterCount = 0;
+        nextJitter = 0;
+    }
+
+    /**
+     * 这一时刻是否应该绘制一帧；返回true时同时排定下一帧的时间
+     * 留1/8周期的余量，吸收vsync时间戳和睡眠唤醒的误差
+     */
+    public boolean isFrameDue(long nowNanos) {
+        if (nowNanos < nextFrameNanos - periodNanos / 8) {
+            return false;
+        }
+        nextFrameNanos += periodNanos;
+        if (nextFrameNanos <= nowNanos) {
+            // 落后超过一帧，从当前时间重新对齐
+            nextFrameNanos = nowNanos + periodNanos;
+        }
+        return true;
+    }
+
+    /**
+     * 下一帧的排定时间，睡眠节拍据此计算睡眠时长
+     */
+    public long getNextFrameNanos() {
+        return nextFrameNanos;
+    }
+
+    /**
+     * 开始新的一帧，累加经过的时间并统计抖动
+     *
+     * @return 本帧需要执行的模拟步数
+     */
+    public int advance(long frameNanos) {
+        if (lastFrameNanos < 0) {
+            lastFrameNanos = frameNanos;
+            return 0;
+        }
+        long elapsed = frameNanos - lastFrameNanos;
+        lastFrameNanos = frameNanos;
+
+        jitter[nextJitter] = Math.abs(elapsed - periodNanos);
+        nextJitter = (nextJitter + 1) % JITTER_WINDOW;
+        jitterCount = Math.min(jitterCount + 1, JITTER_WINDOW);
+
+        accumulator += elapsed;
+        long steps = accumulator / stepNanos;
+        accumulator -= steps * stepNanos;
+        return (int) Math.min(steps, MAX_STEPS_PER_FRAME);
+    }
+
+    /**
+     * 每步模拟的时长（秒）
+     */
+    public float getStepSeconds() {
+        return stepNanos / 1_000_000_000f;
+    }
+
+    /**
+     * 插值系数0-1：上一步模拟之后经过的时间占一步的比例
+     */
+    public float getAlpha() {
+        return (float) accumulator / stepNanos;
+    }
+
+    /**
+     * 最近帧的平均抖动（毫秒）
+     */
+    public float getJitterMillis() {
+        if (jitterCount == 0) return 0;
+        long sum = 0;
+        for (int i = 0; i < jitterCount; i++) {
+            sum += jitter[i];
+        }
+        return sum / (float) jitterCount / 1_000_000f;
+    }
+
+    /**
+     * 最近帧的最大抖动（毫秒）
+     */
+    public float getMaxJitterMillis() {
+        long max = 0;
+        for (int i = 0; i < jitterCount; i++) {
+            max = Math.max(max, jitter[i]);
+        }
+        return max / 1_000_000f;
+    }
+}
@@ -0,0 +1,75 @@
+package com.gamedev.match3.engine;
+
+import java.util.Arrays;
+
+/**
+ * 耗时直方图 - 固定的0.1ms桶，记录不产生分配，分位数按桶计算
+ *
+ * 超过MAX_MILLIS的耗时计入最后一个桶，最大值和总和单独精确记录。
+ */
+public class FrameHistogram {
+    private static final long BUCKET_NANOS = 100_000;
+    private static final int MAX_MILLIS = 200;
+    private static final int BUCKET_COUNT = (int) (MAX_MILLIS * 1_000_000L / BUCKET_NANOS) + 1;
+
+    private final int[] buckets = new int[BUCKET_COUNT];
+    private long count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int bucket = (int) Math.min(nanos / BUCKET_NANOS, BUCKET_COUNT - 1);
+        buckets[bucket]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+    }
+
+    /**
+     * 复制另一个直方图的全部样本
+     */
+    public void copyFrom(FrameHistogram other) {
+        System.arraycopy(other.buckets, 0, buckets, 0, BUCKET_COUNT);
+        count = other.count;
+        totalNanos = other.totalNanos;
+        maxNanos = other.maxNanos;
+    }
+
+    public void reset() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 分位数（毫秒），取所在桶的上界，不超过最大值；没有样本时返回0
+     *
+     * @param percentile 0-100
+     */
+    public float getPercentileMillis(float percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min((i + 1) * BUCKET_NANOS, maxNanos) / 1_000_000f;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public float getMeanMillis() {
+        return count == 0 ? 0 : totalNanos / (float) count / 1_000_000f;
+    }
+
+    public float getMaxMillis() {
+        return maxNanos / 1_000_000f;
+    }
+}
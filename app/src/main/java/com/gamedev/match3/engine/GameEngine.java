@@ -1,54 +1,341 @@
 package com.gamedev.match3.engine;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * 游戏引擎 - 处理所有游戏逻辑
  */
 public class GameEngine {
-    private static final int BOARD_WIDTH = 6;
-    private static final int BOARD_HEIGHT = 8;
-    private static final int MIN_MATCH = 3;
+    /**
+     * 链式反应的步骤
+     */
+    public enum CascadeStep {
+        IDLE,    // 无进行中的链式反应
+        REMOVE,  // 移除匹配并计分
+        GRAVITY, // 瓷砖下落
+        REFILL   // 填充顶部空位
+    }
 
-    private Tile[][] board;
+    private static final CascadeStep[] CASCADE_STEPS = CascadeStep.values();
+
+    private static final int DEFAULT_WIDTH = 6;
+    private static final int DEFAULT_HEIGHT = 8;
+    // 棋盘边长上限
+    public static final int MAX_BOARD_SIZE = 4096;
+    static final int MIN_MATCH = 3;
+    static final int TYPE_COUNT = 6;
+    // 计分：3个50分，4个200分，5个500分，6个1000分
+    private static final int[] SCORE_TABLE = {50, 200, 500, 1000, 2000};
+    // 死局时打乱棋盘的尝试次数，超过后重新生成棋盘
+    private static final int RESHUFFLE_ATTEMPTS = 20;
+    // 格子数达到该值时，匹配扫描和下落按条带并行执行
+    private static final int PARALLEL_THRESHOLD = 256 * 256;
+    // 并行时每个条带大约包含的格子数
+    private static final int CELLS_PER_STRIP = 16 * 1024;
+
+    /** 格子标记：本轮下落中有瓷砖落入该格 */
+    public static final int FLAG_FELL = 1;
+    /** 格子标记：本轮填充中生成了新瓷砖 */
+    public static final int FLAG_SPAWNED = 2;
+
+    private final int width;
+    private final int height;
+    // 棋盘按列优先存放，下标为col * height + row，同一列的格子连续，下落只在列内移动
+    private final byte[] types;
+    // 每格的标记位，与changedCells同步：清空变化集合时一并清除
+    private final byte[] flags;
+    // 位棋盘匹配扫描器，与types保持同步
+    private final MatchScanner scanner;
     private int score = 0;
     private int level = 1;
     private int moves = 0;
     private int matchCount = 0;
     private boolean isGameRunning = true;
-    private Random random;
-
-    private List<Tile> matchedTiles = new ArrayList<>();
-    private Set<Integer> changedCells = new HashSet<>();
+    // 不加锁的随机数生成器，每局开局时以本局种子重置
+    private final FastRandom random = new FastRandom(0);
+    private long gameSeed;
+    // 对局记录，为空表示不记录；恢复存档或快照后棋盘不再能从种子重现，要到下一局才重新记录
+    private MoveLog moveLog;
+    private boolean moveLogActive = false;
+    // 保存对局状态时复用的快照
+    private BoardState savedBoard;
+    // 发布给渲染线程的棋盘帧，未启用时为空
+    private BoardFrameBuffer frames;
+    private long frameSequence = 0;
+
+    // 复用的格子集合，稳态下不产生分配
+    private final CellSet matchedCells;
+    private final CellSet changedCells;
+    // 合法交换索引，随棋盘变化局部更新
+    private final MoveIndex moveIndex;
+    // 大棋盘并行下落使用的线程池，小棋盘为空
+    private final ForkJoinPool pool;
+    // 下落时每列最低的变化行，-1表示该列未变化
+    private final int[] gravityLowest;
+    private int reshuffleCount = 0;
+
+    // 链式反应状态：下一步要执行的步骤，及各步骤最近一次的耗时
+    private CascadeStep cascadeStep = CascadeStep.IDLE;
+    private final long[] stepNanos = new long[CASCADE_STEPS.length];
+    private int cascadeDepth = 0;
 
     public GameEngine() {
-        this.random = new Random();
-        this.board = new Tile[BOARD_HEIGHT][BOARD_WIDTH];
-        initializeBoard();
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+    }
+
+    /**
+     * 创建指定大小的棋盘，格子数达到并行阈值时使用公共fork-join线程池
+     */
+    public GameEngine(int width, int height) {
+        this(width, height, System.nanoTime());
     }
 
     /**
-     * 初始化游戏板
+     * 使用固定随机种子创建棋盘，相同种子得到相同的初始棋盘和填充序列
+     */
+    public GameEngine(int width, int height, long seed) {
+        this(width, height, seed, null);
+    }
+
+    /**
+     * 从保存的对局状态创建，不生成新棋盘；存档不存在或无效时按新种子开局
+     */
+    public GameEngine(int width, int height, GameStateStore savedState) {
+        this(width, height, System.nanoTime(), savedState);
+    }
+
+    private GameEngine(int width, int height, long seed, GameStateStore savedState) {
+        if (width < MIN_MATCH || height < MIN_MATCH || width > MAX_BOARD_SIZE || height > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Invalid board size: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.pool = width * height >= PARALLEL_THRESHOLD ? ForkJoinPool.commonPool() : null;
+        this.types = new byte[width * height];
+        this.flags = new byte[width * height];
+        this.scanner = new MatchScanner(width, height, MIN_MATCH, TYPE_COUNT, pool, CELLS_PER_STRIP);
+        this.matchedCells = new CellSet(width, height);
+        this.changedCells = new CellSet(width, height);
+        this.moveIndex = new MoveIndex(this, width, height, MIN_MATCH);
+        this.gravityLowest = new int[width];
+        this.gameSeed = seed;
+        random.setSeed(seed);
+        if (savedState == null || !savedState.load(this)) {
+            initializeBoard();
+        }
+    }
+
+    /**
+     * 初始化游戏板 - 无初始匹配且至少有一个合法交换
      */
     private void initializeBoard() {
-        for (int row = 0; row < BOARD_HEIGHT; row++) {
-            for (int col = 0; col < BOARD_WIDTH; col++) {
-                int type = random.nextInt(6) + 1; // 类型1-6
-                board[row][col] = new Tile(type, row, col);
+        do {
+            generateBoard();
+        } while (moveIndex.getMoveCount() == 0);
+    }
+
+    /**
+     * 随机生成没有匹配的棋盘
+     */
+    private void generateBoard() {
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int type = random.nextInt(TYPE_COUNT) + 1; // 类型1-6
+                // 避免生成初始匹配：与左侧或上方两格同色时换下一种颜色
+                while (formsRunOnPlacement(row, col, type)) {
+                    type = type % TYPE_COUNT + 1;
+                }
+                types[col * height + row] = (byte) type;
             }
         }
-        // 清除初始匹配
-        while (findMatches().size() > 0) {
-            fillBoard();
+        rebuildMasks();
+    }
+
+    /**
+     * 检查在(row, col)放置type后是否与左侧或上方的两格构成三连
+     */
+    private boolean formsRunOnPlacement(int row, int col, int type) {
+        int cell = col * height + row;
+        if (col >= 2 && types[cell - height] == type && types[cell - 2 * height] == type) {
+            return true;
         }
+        return row >= 2 && types[cell - 1] == type && types[cell - 2] == type;
+    }
+
+    /**
+     * 根据types重建所有位棋盘
+     */
+    private void rebuildMasks() {
+        // 清空后下次查找会全盘扫描
+        scanner.clear();
+        for (int col = 0; col < width; col++) {
+            for (int row = 0; row < height; row++) {
+                scanner.set(row, col, Tile.TYPE_EMPTY, types[col * height + row]);
+            }
+        }
+        moveIndex.invalidateAll();
+    }
+
+    /**
+     * 死局时打乱棋盘 - 保证结果没有匹配且至少有一个合法交换
+     */
+    private void reshuffle() {
+        reshuffleCount++;
+        int cellCount = width * height;
+        boolean solvable = false;
+        for (int attempt = 0; attempt < RESHUFFLE_ATTEMPTS && !solvable; attempt++) {
+            // Fisher-Yates洗牌，保留原有颜色分布；按行优先的顺序抽取，与已有对局记录的随机序列一致
+            for (int i = cellCount - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int a = (i % width) * height + i / width;
+                int b = (j % width) * height + j / width;
+                byte type = types[a];
+                types[a] = types[b];
+                types[b] = type;
+            }
+            rebuildMasks();
+            solvable = findMatches().isEmpty() && moveIndex.getMoveCount() > 0;
+        }
+        if (!solvable) {
+            initializeBoard();
+        }
+        markAllChanged();
+    }
+
+    /**
+     * 整个棋盘被替换，所有格子都算作变化
+     */
+    private void markAllChanged() {
+        changedCells.clear();
+        Arrays.fill(flags, (byte) 0);
+        for (int cell = 0; cell < width * height; cell++) {
+            changedCells.add(cell);
+        }
+    }
+
+    /**
+     * 保存当前棋盘的压缩快照
+     */
+    public BoardState snapshot() {
+        BoardState state = new BoardState(width, height);
+        snapshot(state);
+        return state;
+    }
+
+    /**
+     * 把当前棋盘写入已有快照，不产生分配
+     */
+    public void snapshot(BoardState into) {
+        into.checkSize(width, height);
+        long[] words = into.words;
+        int row = 0;
+        int col = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = 0;
+            for (int shift = 0; shift < BoardState.CELLS_PER_WORD * BoardState.BITS_PER_CELL && row < height;
+                    shift += BoardState.BITS_PER_CELL) {
+                word |= (long) types[col * height + row] << shift;
+                if (++col == width) {
+                    col = 0;
+                    row++;
+                }
+            }
+            words[w] = word;
+        }
+    }
+
+    /**
+     * 当前棋盘的哈希，与snapshot().longHash()相同，复用内部快照不产生分配
+     */
+    public long getBoardHash() {
+        if (savedBoard == null) {
+            savedBoard = new BoardState(width, height);
+        }
+        snapshot(savedBoard);
+        return savedBoard.longHash();
+    }
+
+    /**
+     * 恢复快照中的棋盘 - 只恢复格子，分数、关卡、步数等对局进度保持当前值，进行中的链式反应被放弃
+     * 快照不含对局进度，单独使用不能实现撤销：分数和步数不会回退。
+     * 对局记录不包含恢复操作，恢复后停止记录，直到下一局开局
+     */
+    public void restore(BoardState state) {
+        state.checkSize(width, height);
+        moveLogActive = false;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                types[col * height + row] = (byte) state.get(row, col);
+            }
+        }
+        rebuildMasks();
+        cascadeStep = CascadeStep.IDLE;
+        cascadeDepth = 0;
+        markAllChanged();
+        publishFrame();
+    }
+
+    /**
+     * 标记格子所在的行和列需要重新扫描
+     */
+    private void markDirty(int row, int col) {
+        scanner.markDirty(row, col);
+        moveIndex.invalidate(row, col);
+    }
+
+    /**
+     * 供合法交换索引读取格子类型
+     */
+    int typeAt(int row, int col) {
+        return types[col * height + row];
+    }
+
+    /**
+     * 记录变化的格子，并标记其所在行列待扫描
+     */
+    private void markChanged(int row, int col) {
+        changedCells.add(row * width + col);
+        markDirty(row, col);
+    }
+
+    /**
+     * 清空变化集合，并清除其中格子的标记
+     */
+    private void clearChanged() {
+        for (int i = 0; i < changedCells.size(); i++) {
+            flags[changedCells.getCol(i) * height + changedCells.getRow(i)] = 0;
+        }
+        changedCells.clear();
+    }
+
+    /**
+     * 交换两个格子的瓷砖，同步位棋盘
+     */
+    private void exchangeCells(int row1, int col1, int row2, int col2) {
+        int first = col1 * height + row1;
+        int second = col2 * height + row2;
+        byte type = types[first];
+        types[first] = types[second];
+        types[second] = type;
+
+        scanner.exchange(row1, col1, type, row2, col2, types[first]);
+    }
+
+    /**
+     * 设置格子类型，同步位棋盘
+     */
+    private void setType(int row, int col, int type) {
+        int cell = col * height + row;
+        scanner.set(row, col, types[cell], type);
+        types[cell] = (byte) type;
     }
 
     /**
      * 处理瓷砖交换
+     * 成功后链式反应进入待处理状态，须由update消除匹配并稳定棋盘后才接受下一次交换
      */
     public boolean swapTiles(int row1, int col1, int row2, int col2) {
         if (!isValidPosition(row1, col1) || !isValidPosition(row2, col2)) {
@@ -60,102 +347,104 @@ public class GameEngine {
             return false;
         }
 
-        // 交换
-        Tile temp = board[row1][col1];
-        board[row1][col1] = board[row2][col2];
-        board[row2][col2] = temp;
-
-        // 更新位置信息
-        board[row1][col1].row = row1;
-        board[row1][col1].col = col1;
-        board[row2][col2].row = row2;
-        board[row2][col2].col = col2;
+        // 链式反应进行中或上一次交换的匹配还没消除，不接受交换
+        if (cascadeStep != CascadeStep.IDLE) {
+            return false;
+        }
 
-        // 检查匹配
-        List<Tile> matches = findMatches();
-        if (matches.size() >= MIN_MATCH) {
-            matchCount++;
-            moves++;
-            return true;
-        } else {
-            // 没有匹配，回滚
-            temp = board[row1][col1];
-            board[row1][col1] = board[row2][col2];
-            board[row2][col2] = temp;
-            board[row1][col1].row = row1;
-            board[row1][col1].col = col1;
-            board[row2][col2].row = row2;
-            board[row2][col2].col = col2;
+        // 查索引判断交换能否形成匹配，不合法时不修改棋盘
+        if (!moveIndex.isLegal(row1, col1, row2, col2)) {
             return false;
         }
+
+        exchangeCells(row1, col1, row2, col2);
+        markDirty(row1, col1);
+        markDirty(row2, col2);
+        matchCount++;
+        moves++;
+        // 合法交换一定形成匹配：直接进入移除步骤，下一次update消除之前不再接受交换
+        cascadeStep = CascadeStep.REMOVE;
+        cascadeDepth = 0;
+        if (moveLogActive) {
+            moveLog.record(row1, col1, row2, col2);
+        }
+        publishFrame();
+        return true;
     }
 
     /**
-     * 查找所有匹配的瓷砖
+     * 获取提示：任意一个合法交换
+     *
+     * @return {row1, col1, row2, col2}，没有合法交换时返回null
      */
-    public List<Tile> findMatches() {
-        matchedTiles.clear();
-        Set<Tile> matched = new HashSet<>();
+    public int[] getHint() {
+        int[] move = new int[4];
+        return moveIndex.findMove(move) ? move : null;
+    }
 
-        // 检查水平匹配
-        for (int row = 0; row < BOARD_HEIGHT; row++) {
-            for (int col = 0; col < BOARD_WIDTH; col++) {
-                if (board[row][col].isEmpty()) continue;
+    /**
+     * 当前棋盘上合法交换的数量
+     */
+    public int getLegalMoveCount() {
+        return moveIndex.getMoveCount();
+    }
 
-                int matchLen = 1;
-                while (col + matchLen < BOARD_WIDTH &&
-                        board[row][col].matches(board[row][col + matchLen])) {
-                    matchLen++;
-                }
+    /**
+     * 列出所有合法交换，每个交换依次写入row1, col1, row2, col2
+     *
+     * @return 写入的交换个数，受out长度限制
+     */
+    public int getLegalMoves(int[] out) {
+        return moveIndex.listMoves(out);
+    }
 
-                if (matchLen >= MIN_MATCH) {
-                    for (int i = 0; i < matchLen; i++) {
-                        matched.add(board[row][col + i]);
-                    }
-                }
-            }
+    /**
+     * 不修改棋盘，预估交换能直接消除的格子数（不计链式反应），不合法时返回0
+     */
+    public int previewSwap(int row1, int col1, int row2, int col2) {
+        if (!isValidPosition(row1, col1) || !isValidPosition(row2, col2)
+                || !isAdjacent(row1, col1, row2, col2)) {
+            return 0;
         }
+        return moveIndex.matchSize(row1, col1, row2, col2);
+    }
 
-        // 检查垂直匹配
-        for (int col = 0; col < BOARD_WIDTH; col++) {
-            for (int row = 0; row < BOARD_HEIGHT; row++) {
-                if (board[row][col].isEmpty()) continue;
-
-                int matchLen = 1;
-                while (row + matchLen < BOARD_HEIGHT &&
-                        board[row][col].matches(board[row + matchLen][col])) {
-                    matchLen++;
-                }
-
-                if (matchLen >= MIN_MATCH) {
-                    for (int i = 0; i < matchLen; i++) {
-                        matched.add(board[row + i][col]);
-                    }
-                }
-            }
-        }
+    /**
+     * 因死局而打乱棋盘的次数
+     */
+    public int getReshuffleCount() {
+        return reshuffleCount;
+    }
 
-        matchedTiles.addAll(matched);
-        return matchedTiles;
+    /**
+     * 查找所有匹配的瓷砖 - 基于位棋盘的移位与运算
+     * 只重新扫描经过变化格子的行和列，其余行列沿用上次结果
+     */
+    public CellSet findMatches() {
+        long span = Trace.begin();
+        scanner.scan(matchedCells);
+        Trace.end("GameEngine.findMatches", span);
+        return matchedCells;
     }
 
     /**
      * 移除匹配的瓷砖并计分
      */
     public void removeMatches() {
-        List<Tile> matches = findMatches();
+        CellSet matches = findMatches();
         if (matches.isEmpty()) return;
 
-        // 计分：3个50分，4个200分，5个500分，6个1000分
-        int multiplier = Math.min(matches.size() - 2, 4);
-        int baseScore = new int[]{50, 200, 500, 1000, 2000}[multiplier];
-        score += baseScore;
+        long span = Trace.begin();
+        score += scoreFor(matches.size());
 
-        changedCells.clear();
-        for (Tile tile : matches) {
-            tile.type = Tile.TYPE_EMPTY;
-            changedCells.add(tile.row * BOARD_WIDTH + tile.col);
+        clearChanged();
+        for (int i = 0; i < matches.size(); i++) {
+            int row = matches.getRow(i);
+            int col = matches.getCol(i);
+            setType(row, col, Tile.TYPE_EMPTY);
+            markChanged(row, col);
         }
+        Trace.end("GameEngine.removeMatches", span);
 
         // 检查关卡升级
         if (matchCount % 5 == 0) {
@@ -163,58 +452,167 @@ public class GameEngine {
         }
     }
 
+    /**
+     * 一轮消除matched个格子的得分
+     */
+    static int scoreFor(int matched) {
+        return SCORE_TABLE[Math.min(matched - 2, 4)];
+    }
+
     /**
      * 填充游戏板 - 移动瓷砖向下并填充空位
      */
     public void fillBoard() {
-        changedCells.clear();
-        
-        // 第一步：将瓷砖下移
-        for (int col = 0; col < BOARD_WIDTH; col++) {
-            int writePos = BOARD_HEIGHT - 1;
-            for (int row = BOARD_HEIGHT - 1; row >= 0; row--) {
-                if (!board[row][col].isEmpty()) {
-                    if (row != writePos) {
-                        board[writePos][col] = board[row][col];
-                        board[writePos][col].row = writePos;
-                        changedCells.add(writePos * BOARD_WIDTH + col);
-                        changedCells.add(row * BOARD_WIDTH + col);
-                    }
-                    writePos--;
+        long span = Trace.begin();
+        applyGravity();
+        refill();
+        Trace.end("GameEngine.fillBoard", span);
+    }
+
+    /**
+     * 将瓷砖下移，空位集中到每列顶部
+     * 大棋盘按64列对齐的列条带并行压缩，再统一记录变化的格子
+     */
+    public void applyGravity() {
+        long span = Trace.begin();
+        clearChanged();
+
+        if (pool != null) {
+            pool.invoke(new GravityTask(0, width));
+        } else {
+            compactColumns(0, width);
+        }
+
+        for (int col = 0; col < width; col++) {
+            for (int row = gravityLowest[col]; row >= 0; row--) {
+                markChanged(row, col);
+            }
+        }
+        Trace.end("GameEngine.applyGravity", span);
+    }
+
+    /**
+     * 压缩[fromCol, toCol)内的列，只修改这些列的格子和位棋盘
+     * 每列是types中连续的一段，非空格子依次前移到列底
+     */
+    private void compactColumns(int fromCol, int toCol) {
+        for (int col = fromCol; col < toCol; col++) {
+            int base = col * height;
+            int lowest = -1;
+            int writePos = height - 1;
+            for (int row = height - 1; row >= 0; row--) {
+                byte type = types[base + row];
+                if (type == Tile.TYPE_EMPTY) continue;
+                if (row != writePos) {
+                    // writePos处必为空格，移动后空格上移
+                    types[base + writePos] = type;
+                    types[base + row] = Tile.TYPE_EMPTY;
+                    flags[base + writePos] |= FLAG_FELL;
+                    scanner.exchange(row, col, type, writePos, col, Tile.TYPE_EMPTY);
+                    if (lowest < 0) lowest = writePos;
                 }
+                writePos--;
             }
+            gravityLowest[col] = lowest;
         }
+    }
 
-        // 第二步：生成新瓷砖填充顶部空位
-        for (int row = 0; row < BOARD_HEIGHT; row++) {
-            for (int col = 0; col < BOARD_WIDTH; col++) {
-                if (board[row][col].isEmpty()) {
-                    int type = random.nextInt(6) + 1;
-                    board[row][col] = new Tile(type, row, col);
-                    changedCells.add(row * BOARD_WIDTH + col);
+    /**
+     * 随机填充空位，按行优先的顺序取随机数，与已有对局记录一致
+     */
+    public void refill() {
+        long span = Trace.begin();
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if (types[col * height + row] == Tile.TYPE_EMPTY) {
+                    setType(row, col, random.nextInt(TYPE_COUNT) + 1);
+                    flags[col * height + row] |= FLAG_SPAWNED;
+                    markChanged(row, col);
                 }
             }
         }
+        Trace.end("GameEngine.refill", span);
     }
 
     /**
-     * 执行一次游戏循环
+     * 执行一次游戏循环 - 一次性处理完整个链式反应
      */
     public void update() {
-        // 移除匹配
-        removeMatches();
-        
-        // 如果有移除，填充并再次检查
-        if (!matchedTiles.isEmpty()) {
-            fillBoard();
-            
-            // 继续链式反应
-            if (findMatches().size() > 0) {
-                update(); // 递归调用处理链式反应
+        update(Long.MAX_VALUE);
+    }
+
+    /**
+     * 在时间预算内推进链式反应
+     * 每次调用至少执行一个步骤，超出预算后剩余步骤留到下次调用
+     *
+     * @param budgetNanos 本次可用的时间（纳秒）
+     * @return 链式反应是否仍未结束
+     */
+    public boolean update(long budgetNanos) {
+        long span = Trace.begin();
+        boolean cascading = advanceCascade(budgetNanos);
+        Trace.end("GameEngine.update", span);
+        return cascading;
+    }
+
+    private boolean advanceCascade(long budgetNanos) {
+        if (cascadeStep == CascadeStep.IDLE) {
+            if (findMatches().isEmpty()) {
+                checkGameOver();
+                return false;
             }
+            cascadeStep = CascadeStep.REMOVE;
+            cascadeDepth = 0;
         }
 
-        // 检查是否游戏结束
+        long start = System.nanoTime();
+        long now = start;
+        boolean more;
+        do {
+            CascadeStep step = cascadeStep;
+            long stepStart = now;
+            switch (step) {
+                case REMOVE:
+                    removeMatches();
+                    cascadeDepth++;
+                    cascadeStep = CascadeStep.GRAVITY;
+                    break;
+                case GRAVITY:
+                    applyGravity();
+                    cascadeStep = CascadeStep.REFILL;
+                    break;
+                default:
+                    refill();
+                    // 继续链式反应
+                    cascadeStep = findMatches().isEmpty() ? CascadeStep.IDLE : CascadeStep.REMOVE;
+                    break;
+            }
+            now = System.nanoTime();
+            stepNanos[step.ordinal()] = now - stepStart;
+            more = cascadeStep != CascadeStep.IDLE && now - start < budgetNanos;
+            // 还要继续下一步时先发布这一步的结果；最后一步的结果在循环后统一发布，每步只复制一次棋盘
+            if (more) {
+                publishFrame();
+            }
+        } while (more);
+
+        // 链式反应结束后没有合法交换则打乱棋盘
+        if (cascadeStep == CascadeStep.IDLE && moveIndex.getMoveCount() == 0) {
+            reshuffle();
+        }
+
+        if (moveLogActive && cascadeStep == CascadeStep.IDLE) {
+            moveLog.setResult(score, getBoardHash());
+        }
+        checkGameOver();
+        publishFrame();
+        return cascadeStep != CascadeStep.IDLE;
+    }
+
+    /**
+     * 检查是否游戏结束
+     */
+    private void checkGameOver() {
         if (matchCount > 50) { // 简单的游戏结束条件
             isGameRunning = false;
         }
@@ -224,7 +622,7 @@ public class GameEngine {
      * 检查位置是否有效
      */
     private boolean isValidPosition(int row, int col) {
-        return row >= 0 && row < BOARD_HEIGHT && col >= 0 && col < BOARD_WIDTH;
+        return row >= 0 && row < height && col >= 0 && col < width;
     }
 
     /**
@@ -235,14 +633,61 @@ public class GameEngine {
         return distance == 1;
     }
 
-    // Getter方法
+    /**
+     * 格子的瓷砖类型，绘制和遍历棋盘时使用，不产生分配
+     */
+    public int getType(int row, int col) {
+        if (!isValidPosition(row, col)) {
+            throw new IndexOutOfBoundsException("Invalid cell: " + row + "," + col);
+        }
+        return types[col * height + row];
+    }
+
+    /**
+     * 格子在最近一次变化中的标记（FLAG_FELL、FLAG_SPAWNED），与getChangedCells对应
+     */
+    public int getFlags(int row, int col) {
+        if (!isValidPosition(row, col)) {
+            throw new IndexOutOfBoundsException("Invalid cell: " + row + "," + col);
+        }
+        return flags[col * height + row];
+    }
+
+    /**
+     * 格子的副本，修改它不影响棋盘；频繁读取时使用getType
+     */
     public Tile getTile(int row, int col) {
         if (isValidPosition(row, col)) {
-            return board[row][col];
+            return new Tile(types[col * height + row], row, col);
         }
         return null;
     }
 
+    /**
+     * 链式反应下一步要执行的步骤，IDLE表示没有进行中的链式反应
+     */
+    public CascadeStep getCascadeStep() {
+        return cascadeStep;
+    }
+
+    public boolean isCascading() {
+        return cascadeStep != CascadeStep.IDLE;
+    }
+
+    /**
+     * 当前（或最近一次）链式反应已执行的消除轮数
+     */
+    public int getCascadeDepth() {
+        return cascadeDepth;
+    }
+
+    /**
+     * 指定步骤最近一次执行的耗时（纳秒）
+     */
+    public long getLastStepNanos(CascadeStep step) {
+        return stepNanos[step.ordinal()];
+    }
+
     public int getScore() {
         return score;
     }
@@ -252,31 +697,242 @@ public class GameEngine {
     }
 
     public int getBoardHeight() {
-        return BOARD_HEIGHT;
+        return height;
     }
 
     public int getBoardWidth() {
-        return BOARD_WIDTH;
+        return width;
+    }
+
+    /**
+     * 是否对大棋盘启用了并行扫描
+     */
+    public boolean isParallel() {
+        return pool != null;
     }
 
     public boolean isGameRunning() {
         return isGameRunning;
     }
 
-    public List<Tile> getMatchedTiles() {
-        return matchedTiles;
+    /**
+     * 最近一次查找到的匹配格子（只读视图，下次查找时复用）
+     */
+    public CellSet getMatchedCells() {
+        return matchedCells;
     }
 
-    public Set<Integer> getChangedCells() {
+    /**
+     * 最近一次移除或填充中变化的格子（只读视图）
+     */
+    public CellSet getChangedCells() {
         return changedCells;
     }
 
+    /**
+     * 本局的随机种子，与棋盘大小一起可以重现开局
+     */
+    public long getSeed() {
+        return gameSeed;
+    }
+
+    /**
+     * 设置对局记录 - 本局已有交换时从下一局开始记录，之后每次开局重新开始记录
+     */
+    public void setMoveLog(MoveLog log) {
+        this.moveLog = log;
+        startMoveLog();
+    }
+
+    /**
+     * 本局从种子开局且尚无交换时开始记录
+     */
+    private void startMoveLog() {
+        moveLogActive = moveLog != null && moves == 0;
+        if (moveLogActive) {
+            moveLog.begin(width, height, gameSeed);
+        }
+    }
+
+    /**
+     * 写入完整的对局状态：进度、随机数状态、进行中的链式反应和压缩棋盘
+     */
+    void writeState(ByteBuffer out) {
+        out.putInt(width).putInt(height);
+        out.putInt(score).putInt(level).putInt(moves).putInt(matchCount).putInt(reshuffleCount);
+        out.put((byte) (isGameRunning ? 1 : 0));
+        out.put((byte) cascadeStep.ordinal()).putInt(cascadeDepth);
+        out.putLong(gameSeed).putLong(random.getState());
+
+        if (savedBoard == null) {
+            savedBoard = new BoardState(width, height);
+        }
+        snapshot(savedBoard);
+        for (long word : savedBoard.words) {
+            out.putLong(word);
+        }
+    }
+
+    /**
+     * writeState写入的字节数
+     */
+    static int stateBytes(int width, int height) {
+        int words = (width * height + BoardState.CELLS_PER_WORD - 1) / BoardState.CELLS_PER_WORD;
+        return 4 * 7 + 2 + 4 + 8 * 2 + 8 * words;
+    }
+
+    /**
+     * 读取writeState写入的对局状态
+     *
+     * @return 棋盘大小不一致、数据无效或对局已结束时返回false，引擎不变
+     */
+    boolean readState(ByteBuffer in) {
+        if (in.getInt() != width || in.getInt() != height) {
+            return false;
+        }
+        int savedScore = in.getInt();
+        int savedLevel = in.getInt();
+        int savedMoves = in.getInt();
+        int savedMatchCount = in.getInt();
+        int savedReshuffles = in.getInt();
+        boolean running = in.get() != 0;
+        int step = in.get();
+        int depth = in.getInt();
+        long seed = in.getLong();
+        long randomState = in.getLong();
+        if (step < 0 || step >= CASCADE_STEPS.length) {
+            return false;
+        }
+        // 已结束的对局不恢复，按新种子开局
+        if (!running) {
+            return false;
+        }
+
+        if (savedBoard == null) {
+            savedBoard = new BoardState(width, height);
+        }
+        for (int w = 0; w < savedBoard.words.length; w++) {
+            savedBoard.words[w] = in.getLong();
+        }
+        // 每格3位可以表示7，超出瓷砖类型的格子说明数据已损坏
+        for (int cell = 0; cell < width * height; cell++) {
+            if (savedBoard.getCell(cell) > TYPE_COUNT) {
+                return false;
+            }
+        }
+        restore(savedBoard);
+
+        score = savedScore;
+        level = savedLevel;
+        moves = savedMoves;
+        matchCount = savedMatchCount;
+        reshuffleCount = savedReshuffles;
+        isGameRunning = running;
+        cascadeStep = CASCADE_STEPS[step];
+        cascadeDepth = depth;
+        gameSeed = seed;
+        random.setState(randomState);
+        startMoveLog();
+        publishFrame();
+        return true;
+    }
+
+    /**
+     * 开始新的一局，种子取自当前随机序列
+     */
     public void reset() {
+        reset(random.nextLong());
+    }
+
+    /**
+     * 以指定种子开始新的一局
+     */
+    public void reset(long seed) {
+        gameSeed = seed;
+        random.setSeed(seed);
         score = 0;
         level = 1;
         moves = 0;
         matchCount = 0;
         isGameRunning = true;
+        cascadeStep = CascadeStep.IDLE;
+        cascadeDepth = 0;
+        reshuffleCount = 0;
         initializeBoard();
+        startMoveLog();
+        publishFrame();
+    }
+
+    /**
+     * 开始发布棋盘帧：之后每个逻辑步骤（交换、链式反应的每一步、重开和恢复）结束时
+     * 把完整棋盘复制到三缓冲中，渲染线程通过acquireFrame无锁读取。
+     * 须在读取线程启动之前调用；引擎本身仍只能由一个线程修改。
+     */
+    public void enableFrames() {
+        if (frames == null) {
+            frames = new BoardFrameBuffer(width, height);
+            publishFrame();
+        }
+    }
+
+    /**
+     * 获取最近发布的棋盘帧，只能由一个读取线程调用
+     * 返回的帧在下一次调用之前保持不变，不会读到执行了一半的交换或链式反应
+     */
+    public BoardFrame acquireFrame() {
+        if (frames == null) {
+            throw new IllegalStateException("Frames not enabled");
+        }
+        return frames.acquire();
+    }
+
+    /**
+     * 最近一次发布的棋盘帧序号，只能由修改引擎的线程调用
+     */
+    public long getFrameSequence() {
+        return frameSequence;
+    }
+
+    /**
+     * 把当前棋盘和进度写入后台帧并发布
+     */
+    private void publishFrame() {
+        if (frames == null) return;
+        BoardFrame frame = frames.back();
+        System.arraycopy(types, 0, frame.types, 0, types.length);
+        System.arraycopy(flags, 0, frame.flags, 0, flags.length);
+        frame.score = score;
+        frame.level = level;
+        frame.moves = moves;
+        frame.gameRunning = isGameRunning;
+        frame.cascadeStep = cascadeStep;
+        frame.sequence = ++frameSequence;
+        frames.publish();
+    }
+
+    /**
+     * 按列条带并行下落的任务，条带按64列对齐，避免不同线程写同一个位棋盘long
+     */
+    private class GravityTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int fromCol;
+        private final int toCol;
+
+        GravityTask(int fromCol, int toCol) {
+            this.fromCol = fromCol;
+            this.toCol = toCol;
+        }
+
+        @Override
+        protected void compute() {
+            int columns = toCol - fromCol;
+            if (columns * height <= CELLS_PER_STRIP || columns <= 64) {
+                compactColumns(fromCol, toCol);
+                return;
+            }
+            int mid = fromCol + (((columns >>> 1) + 63) & ~63);
+            invokeAll(new GravityTask(fromCol, mid), new GravityTask(mid, toCol));
+        }
     }
 }
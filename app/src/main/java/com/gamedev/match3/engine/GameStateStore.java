@@ -0,0 +1,131 @@
+package com.gamedev.match3.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 对局存档 - 暂停时把引擎状态写成紧凑的二进制文件，重新启动时从文件恢复
+ *
+ * 缓冲区和文件通道预先分配并一直复用，保存只有一次状态编码和一次write调用，
+ * 不调用force，写入由系统页缓存完成，进程被杀后数据仍然保留。
+ * 文件格式：MAGIC、VERSION、状态长度、GameEngine.writeState的内容、校验和。
+ */
+public class GameStateStore {
+    private static final int MAGIC = 0x4D335354; // "M3ST"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int CHECKSUM_BYTES = 8;
+
+    private final File file;
+    private final int stateBytes;
+    private final ByteBuffer buffer;
+    private FileChannel channel;
+
+    /**
+     * 为指定大小的棋盘准备存档缓冲区
+     */
+    public GameStateStore(File file, int width, int height) {
+        this.file = file;
+        this.stateBytes = GameEngine.stateBytes(width, height);
+        this.buffer = ByteBuffer.allocateDirect(HEADER_BYTES + stateBytes + CHECKSUM_BYTES);
+    }
+
+    /**
+     * 保存引擎状态，覆盖之前的存档
+     */
+    public void save(GameEngine engine) throws IOException {
+        buffer.clear();
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(stateBytes);
+        engine.writeState(buffer);
+        buffer.putLong(checksum(buffer, buffer.position()));
+        buffer.flip();
+
+        FileChannel out = openChannel();
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+    }
+
+    /**
+     * 从存档恢复引擎状态
+     *
+     * @return 存档不存在、损坏、棋盘大小不一致或对局已结束时返回false，引擎不变
+     */
+    public boolean load(GameEngine engine) {
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            FileChannel in = openChannel();
+            if (in.size() != buffer.capacity()) {
+                return false;
+            }
+            buffer.clear();
+            long position = 0;
+            while (buffer.hasRemaining()) {
+                int read = in.read(buffer, position);
+                if (read < 0) return false;
+                position += read;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        int checksumAt = buffer.capacity() - CHECKSUM_BYTES;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != stateBytes
+                || buffer.getLong(checksumAt) != checksum(buffer, checksumAt)) {
+            return false;
+        }
+        buffer.position(HEADER_BYTES);
+        return engine.readState(buffer);
+    }
+
+    /**
+     * 删除存档，例如游戏结束后
+     */
+    public void delete() {
+        close();
+        file.delete();
+    }
+
+    /**
+     * 关闭文件通道，之后再保存时会重新打开
+     */
+    public void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null) {
+            // RandomAccessFile兼容API 21，FileChannel.open需要API 26
+            channel = new RandomAccessFile(file, "rw").getChannel();
+        }
+        return channel;
+    }
+
+    /**
+     * 前length字节的校验和，用于发现写了一半的存档
+     */
+    private static long checksum(ByteBuffer data, int length) {
+        long hash = 0xCBF29CE484222325L;
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            hash = (hash ^ data.getLong(i)) * 0x100000001B3L;
+        }
+        for (; i < length; i++) {
+            hash = (hash ^ data.get(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,127 @@
+package com.gamedev.match3.engine;
+
+/**
+ * HUD文字缓冲 - 每帧重复使用同一个char数组拼接文字，不产生String和StringBuilder
+ *
+ * 绘制时使用Canvas.drawText(char[], int, int, float, float, Paint)。
+ * 超出容量的部分被截断。
+ */
+public final class HudFormatter {
+    private static final int DEFAULT_CAPACITY = 160;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000};
+
+    private final char[] chars;
+    private int length = 0;
+
+    public HudFormatter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public HudFormatter(int capacity) {
+        this.chars = new char[capacity];
+    }
+
+    public HudFormatter clear() {
+        length = 0;
+        return this;
+    }
+
+    public HudFormatter append(String text) {
+        int count = Math.min(text.length(), chars.length - length);
+        text.getChars(0, count, chars, length);
+        length += count;
+        return this;
+    }
+
+    public HudFormatter append(char c) {
+        if (length < chars.length) {
+            chars[length++] = c;
+        }
+        return this;
+    }
+
+    public HudFormatter append(long value) {
+        if (value < 0) {
+            append('-');
+            if (value == Long.MIN_VALUE) {
+                return append("9223372036854775808");
+            }
+            value = -value;
+        }
+        // 先倒序写入再翻转
+        int start = length;
+        do {
+            append((char) ('0' + value % 10));
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char c = chars[i];
+            chars[i] = chars[j];
+            chars[j] = c;
+        }
+        return this;
+    }
+
+    /**
+     * 按固定小数位数四舍五入写入
+     *
+     * @param decimals 0-4
+     */
+    public HudFormatter append(float value, int decimals) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            return append(String.valueOf(value));
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs((double) value) * scale);
+        if (value < 0 && scaled != 0) {
+            append('-');
+        }
+        append(scaled / scale);
+        if (decimals > 0) {
+            append('.');
+            long fraction = scaled % scale;
+            for (long digit = scale / 10; digit > 0; digit /= 10) {
+                append((char) ('0' + fraction / digit % 10));
+            }
+        }
+        return this;
+    }
+
+    public HudFormatter append(char[] text, int offset, int count) {
+        count = Math.min(count, chars.length - length);
+        System.arraycopy(text, offset, chars, length, count);
+        length += count;
+        return this;
+    }
+
+    /**
+     * 改为另一个缓冲的内容
+     */
+    public HudFormatter set(HudFormatter other) {
+        return clear().append(other.chars, 0, other.length);
+    }
+
+    /**
+     * 内容是否与另一个缓冲相同，用于判断文字是否需要重绘
+     */
+    public boolean contentEquals(HudFormatter other) {
+        if (length != other.length) return false;
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != other.chars[i]) return false;
+        }
+        return true;
+    }
+
+    public char[] getChars() {
+        return chars;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,117 @@
+package com.gamedev.match3.engine;
+
+import java.util.Arrays;
+
+/**
+ * 输入延迟统计 - 记录每个命令的写入、执行和首次显示时间，统计触摸到显示(touch-to-photon)的延迟分位数
+ *
+ * 命令执行后等待包含其结果的棋盘帧（发布序号不小于执行后的序号）被提交显示。
+ * 只保留最近SAMPLE_COUNT个样本，分位数按需排序计算，全部在游戏线程调用，不产生分配。
+ */
+public class InputLatencyTracker {
+    private static final int SAMPLE_COUNT = 256;
+    // 已执行、尚未显示的命令数上限，超出时最早的命令不再统计
+    private static final int MAX_PENDING = 16;
+
+    // 等待显示的命令：写入时间、执行时间、需要的帧序号
+    private final long[] pendingEnqueue = new long[MAX_PENDING];
+    private final long[] pendingApply = new long[MAX_PENDING];
+    private final long[] pendingSequence = new long[MAX_PENDING];
+    private int pendingCount = 0;
+
+    // 最近的样本（纳秒）：写入到执行、写入到显示
+    private final long[] queueSamples = new long[SAMPLE_COUNT];
+    private final long[] totalSamples = new long[SAMPLE_COUNT];
+    private final long[] sorted = new long[SAMPLE_COUNT];
+    private int sampleCount = 0;
+    private int nextSample = 0;
+
+    /**
+     * 命令已执行，frameSequence为包含其结果的棋盘帧序号
+     */
+    public void onApplied(long enqueueNanos, long applyNanos, long frameSequence) {
+        if (pendingCount == MAX_PENDING) {
+            removePending(0);
+        }
+        pendingEnqueue[pendingCount] = enqueueNanos;
+        pendingApply[pendingCount] = applyNanos;
+        pendingSequence[pendingCount] = frameSequence;
+        pendingCount++;
+    }
+
+    /**
+     * 序号为frameSequence的棋盘帧已提交显示
+     */
+    public void onPresented(long frameSequence, long presentNanos) {
+        for (int i = pendingCount - 1; i >= 0; i--) {
+            if (pendingSequence[i] <= frameSequence) {
+                queueSamples[nextSample] = pendingApply[i] - pendingEnqueue[i];
+                totalSamples[nextSample] = presentNanos - pendingEnqueue[i];
+                nextSample = (nextSample + 1) % SAMPLE_COUNT;
+                sampleCount = Math.min(sampleCount + 1, SAMPLE_COUNT);
+                removePending(i);
+            }
+        }
+    }
+
+    private void removePending(int index) {
+        pendingCount--;
+        for (int i = index; i < pendingCount; i++) {
+            pendingEnqueue[i] = pendingEnqueue[i + 1];
+            pendingApply[i] = pendingApply[i + 1];
+            pendingSequence[i] = pendingSequence[i + 1];
+        }
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * 触摸到显示延迟的分位数（毫秒），没有样本时返回0
+     *
+     * @param percentile 0-100
+     */
+    public float getLatencyMillis(float percentile) {
+        return percentile(totalSamples, percentile) / 1_000_000f;
+    }
+
+    /**
+     * 命令在队列中等待执行的延迟分位数（毫秒）
+     */
+    public float getQueueMillis(float percentile) {
+        return percentile(queueSamples, percentile) / 1_000_000f;
+    }
+
+    private long percentile(long[] samples, float percentile) {
+        if (sampleCount == 0) return 0;
+        System.arraycopy(samples, 0, sorted, 0, sampleCount);
+        Arrays.sort(sorted, 0, sampleCount);
+        int index = (int) Math.ceil(percentile / 100f * sampleCount) - 1;
+        return sorted[Math.max(0, Math.min(index, sampleCount - 1))];
+    }
+
+    public void reset() {
+        pendingCount = 0;
+        sampleCount = 0;
+        nextSample = 0;
+    }
+
+    /**
+     * 延迟统计字符串
+     */
+    public String getSummary() {
+        return formatSummary(new HudFormatter()).toString();
+    }
+
+    /**
+     * 把统计摘要写入HUD缓冲，每帧绘制时使用，不产生分配
+     */
+    public HudFormatter formatSummary(HudFormatter out) {
+        return out.append("Input: p50 ").append(getLatencyMillis(50), 1)
+                .append("ms | p95 ").append(getLatencyMillis(95), 1)
+                .append("ms | p99 ").append(getLatencyMillis(99), 1)
+                .append("ms | queue p95 ").append(getQueueMillis(95), 1)
+                .append("ms");
+    }
+}
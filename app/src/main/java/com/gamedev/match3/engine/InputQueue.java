@@ -0,0 +1,125 @@
+package com.gamedev.match3.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 输入命令队列 - UI线程写入、游戏线程在每次循环开始时取出的单生产者单消费者环形队列
+ *
+ * 命令存放在预分配的基本类型数组中，写入和取出都不加锁、不产生分配。
+ * 生产者写完命令后才lazySet尾序号，消费者读到尾序号时一定能看到命令内容；
+ * 消费者处理完一批后才推进头序号，生产者不会覆盖未处理的命令。
+ */
+public final class InputQueue {
+    /** 交换(row1, col1)和(row2, col2) */
+    public static final int COMMAND_SWAP = 1;
+    /** 对局结束后开始新的一局，不使用格子参数 */
+    public static final int COMMAND_RESTART = 2;
+
+    /**
+     * 处理取出的命令，在消费者线程调用
+     */
+    public interface Handler {
+        void onCommand(int command, int row1, int col1, int row2, int col2, long enqueueNanos);
+    }
+
+    private final int mask;
+    private final int[] commands;
+    private final int[] args;
+    private final long[] enqueueNanos;
+    // 下一个取出的位置，只由消费者写
+    private final AtomicLong head = new AtomicLong();
+    // 下一个写入的位置，只由生产者写
+    private final AtomicLong tail = new AtomicLong();
+    // 生产者缓存的头序号，只在队列看起来已满时重新读取
+    private long cachedHead = 0;
+    private volatile long dropped = 0;
+
+    /**
+     * @param capacity 最多缓存的命令数，向上取2的幂
+     */
+    public InputQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int size = Math.max(Integer.highestOneBit(capacity - 1) << 1, 1);
+        this.mask = size - 1;
+        this.commands = new int[size];
+        this.args = new int[size * 4];
+        this.enqueueNanos = new long[size];
+    }
+
+    /**
+     * 写入一个命令，只能由生产者线程调用
+     *
+     * @return 队列已满时丢弃命令并返回false
+     */
+    public boolean offer(int command, int row1, int col1, int row2, int col2, long nanos) {
+        long pos = tail.get();
+        if (pos - cachedHead > mask) {
+            cachedHead = head.get();
+            if (pos - cachedHead > mask) {
+                dropped++;
+                return false;
+            }
+        }
+        int index = (int) pos & mask;
+        commands[index] = command;
+        args[index * 4] = row1;
+        args[index * 4 + 1] = col1;
+        args[index * 4 + 2] = row2;
+        args[index * 4 + 3] = col2;
+        enqueueNanos[index] = nanos;
+        tail.lazySet(pos + 1);
+        return true;
+    }
+
+    /**
+     * 依次处理当前已写入的全部命令，只能由消费者线程调用
+     * 处理期间新写入的命令留到下一次
+     *
+     * @return 处理的命令数
+     */
+    public int drain(Handler handler) {
+        return drain(handler, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按写入顺序处理最多maxCommands个命令，只能由消费者线程调用
+     * 其余命令留在队列中，下一次再处理
+     *
+     * @return 处理的命令数
+     */
+    public int drain(Handler handler, int maxCommands) {
+        long pos = head.get();
+        long end = Math.min(tail.get(), pos + Math.max(maxCommands, 0));
+        for (long p = pos; p < end; p++) {
+            int index = (int) p & mask;
+            handler.onCommand(commands[index], args[index * 4], args[index * 4 + 1],
+                    args[index * 4 + 2], args[index * 4 + 3], enqueueNanos[index]);
+        }
+        head.lazySet(end);
+        return (int) (end - pos);
+    }
+
+    /**
+     * 丢弃所有未处理的命令，只能由消费者线程调用
+     */
+    public void clear() {
+        head.lazySet(tail.get());
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 因队列已满而丢弃的命令数
+     */
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,248 @@
+package com.gamedev.match3.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 位棋盘匹配扫描器 - 每种类型一组按行存放的位棋盘，用移位与运算查找连消
+ *
+ * 第row行占 wordsPerRow 个long，第col列在该行第 col / 64 个long的第 col % 64 位。
+ * 只重新扫描变化过的行（水平连消）和列（垂直连消）；
+ * 大棋盘按行分条交给fork-join线程池并行扫描。
+ */
+class MatchScanner {
+    private final int width;
+    private final int height;
+    private final int minMatch;
+    private final int typeCount;
+    private final int wordsPerRow;
+
+    // [type][row * wordsPerRow + word]，下标0为空格
+    private final long[][] colorMasks;
+    // 上次扫描得到的水平/垂直连消格子
+    private final long[] horizontalMatched;
+    private final long[] verticalMatched;
+    // 自上次扫描以来发生变化的行、列
+    private final long[] dirtyRows;
+    private final long[] dirtyCols;
+    private boolean anyDirty = false;
+    private boolean fullScanNeeded = true;
+
+    // 为空表示顺序扫描
+    private final ForkJoinPool pool;
+    private final int rowsPerStrip;
+
+    MatchScanner(int width, int height, int minMatch, int typeCount, ForkJoinPool pool, int cellsPerStrip) {
+        this.width = width;
+        this.height = height;
+        this.minMatch = minMatch;
+        this.typeCount = typeCount;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.colorMasks = new long[typeCount + 1][height * wordsPerRow];
+        this.horizontalMatched = new long[height * wordsPerRow];
+        this.verticalMatched = new long[height * wordsPerRow];
+        this.dirtyRows = new long[(height + 63) >>> 6];
+        this.dirtyCols = new long[wordsPerRow];
+        this.pool = pool;
+        this.rowsPerStrip = Math.max(1, cellsPerStrip / width);
+    }
+
+    /**
+     * 清空所有位棋盘，之后需逐格调用set重建
+     */
+    void clear() {
+        for (long[] masks : colorMasks) {
+            Arrays.fill(masks, 0);
+        }
+        fullScanNeeded = true;
+    }
+
+    /**
+     * 格子类型由oldType变为newType
+     */
+    void set(int row, int col, int oldType, int newType) {
+        int word = row * wordsPerRow + (col >>> 6);
+        long bit = 1L << col;
+        colorMasks[oldType][word] &= ~bit;
+        colorMasks[newType][word] |= bit;
+    }
+
+    /**
+     * 两个格子交换类型
+     */
+    void exchange(int row1, int col1, int type1, int row2, int col2, int type2) {
+        if (type1 == type2) return;
+        int word1 = row1 * wordsPerRow + (col1 >>> 6);
+        int word2 = row2 * wordsPerRow + (col2 >>> 6);
+        long bit1 = 1L << col1;
+        long bit2 = 1L << col2;
+        colorMasks[type1][word1] ^= bit1;
+        colorMasks[type2][word1] ^= bit1;
+        colorMasks[type1][word2] ^= bit2;
+        colorMasks[type2][word2] ^= bit2;
+    }
+
+    /**
+     * 标记格子所在的行和列需要重新扫描
+     */
+    void markDirty(int row, int col) {
+        dirtyRows[row >>> 6] |= 1L << row;
+        dirtyCols[col >>> 6] |= 1L << col;
+        anyDirty = true;
+    }
+
+    /**
+     * 扫描匹配并写入out
+     *
+     * @return 棋盘无变化、沿用上次结果时返回false
+     */
+    boolean scan(CellSet out) {
+        if (!fullScanNeeded && !anyDirty) {
+            return false;
+        }
+
+        if (pool != null && height > rowsPerStrip) {
+            pool.invoke(new StripTask(0, height));
+        } else {
+            scanRows(0, height);
+        }
+
+        fullScanNeeded = false;
+        anyDirty = false;
+        Arrays.fill(dirtyRows, 0);
+        Arrays.fill(dirtyCols, 0);
+
+        out.clear();
+        for (int row = 0; row < height; row++) {
+            int base = row * wordsPerRow;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long matched = horizontalMatched[base + w] | verticalMatched[base + w];
+                while (matched != 0) {
+                    out.add(row * width + (w << 6) + Long.numberOfTrailingZeros(matched));
+                    matched &= matched - 1;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 扫描[fromRow, toRow)内的行，每行只写入自己的结果，可并行执行
+     */
+    private void scanRows(int fromRow, int toRow) {
+        boolean verticalDirty = fullScanNeeded;
+        if (!verticalDirty) {
+            for (long cols : dirtyCols) {
+                if (cols != 0) {
+                    verticalDirty = true;
+                    break;
+                }
+            }
+        }
+
+        for (int row = fromRow; row < toRow; row++) {
+            if (fullScanNeeded || (dirtyRows[row >>> 6] & (1L << row)) != 0) {
+                scanHorizontal(row);
+            }
+        }
+        if (verticalDirty) {
+            scanVertical(fromRow, toRow);
+        }
+    }
+
+    /**
+     * 重新计算一行的水平连消
+     */
+    private void scanHorizontal(int row) {
+        int base = row * wordsPerRow;
+        for (int w = 0; w < wordsPerRow; w++) {
+            long matched = 0;
+            for (int type = 1; type <= typeCount; type++) {
+                long[] masks = colorMasks[type];
+                long start = horizontalStart(masks, base, w);
+                long prevStart = w > 0 ? horizontalStart(masks, base, w - 1) : 0;
+                if ((start | prevStart) == 0) continue;
+                // 由起点展开到整段，可能跨入下一个long
+                matched |= start;
+                for (int i = 1; i < minMatch; i++) {
+                    matched |= (start << i) | (prevStart >>> (64 - i));
+                }
+            }
+            horizontalMatched[base + w] = matched;
+        }
+    }
+
+    /**
+     * 一行第w个long中连续minMatch格同色的起点
+     */
+    private long horizontalStart(long[] masks, int base, int w) {
+        long bits = masks[base + w];
+        long next = w + 1 < wordsPerRow ? masks[base + w + 1] : 0;
+        long start = bits;
+        for (int i = 1; i < minMatch && start != 0; i++) {
+            start &= (bits >>> i) | (next << (64 - i));
+        }
+        return start;
+    }
+
+    /**
+     * 重新计算[fromRow, toRow)内脏列的垂直连消
+     */
+    private void scanVertical(int fromRow, int toRow) {
+        // 起点在条带上方的连消也可能延伸进本条带
+        int firstStart = Math.max(0, fromRow - minMatch + 1);
+        int lastStart = Math.min(toRow - 1, height - minMatch);
+
+        for (int w = 0; w < wordsPerRow; w++) {
+            long dirty = fullScanNeeded ? -1L : dirtyCols[w];
+            if (dirty == 0) continue;
+
+            for (int row = fromRow; row < toRow; row++) {
+                verticalMatched[row * wordsPerRow + w] &= ~dirty;
+            }
+            for (int type = 1; type <= typeCount; type++) {
+                long[] masks = colorMasks[type];
+                for (int startRow = firstStart; startRow <= lastStart; startRow++) {
+                    // 从startRow开始连续minMatch行同色的列
+                    long start = dirty;
+                    for (int i = 0; i < minMatch && start != 0; i++) {
+                        start &= masks[(startRow + i) * wordsPerRow + w];
+                    }
+                    if (start == 0) continue;
+                    // 由起点展开到整段，只写本条带内的行
+                    int from = Math.max(startRow, fromRow);
+                    int to = Math.min(startRow + minMatch, toRow);
+                    for (int row = from; row < to; row++) {
+                        verticalMatched[row * wordsPerRow + w] |= start;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 按行分条的并行扫描任务
+     */
+    private class StripTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int fromRow;
+        private final int toRow;
+
+        StripTask(int fromRow, int toRow) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= rowsPerStrip) {
+                scanRows(fromRow, toRow);
+                return;
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            invokeAll(new StripTask(fromRow, mid), new StripTask(mid, toRow));
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.gamedev.match3.engine;
+
+/**
+ * 合法交换索引 - 记录棋盘上所有能形成匹配的交换，棋盘变化后只重新评估受影响的交换
+ *
+ * 交换以左/上格子的下标(row * width + col)为键：
+ * 水平交换为该格与右侧格交换，垂直交换为该格与下方格交换。
+ */
+class MoveIndex {
+    // 交换后的格子向两侧各检查的距离
+    private static final int REACH = 2;
+
+    private final GameEngine engine;
+    private final int width;
+    private final int height;
+    private final int minMatch;
+
+    private final long[] horizontalMoves;
+    private final long[] verticalMoves;
+    private int moveCount = 0;
+
+    // 待重新评估的交换键
+    private final long[] pendingBits;
+    private final int[] pendingCells;
+    private int pendingCount = 0;
+
+    MoveIndex(GameEngine engine, int width, int height, int minMatch) {
+        this.engine = engine;
+        this.width = width;
+        this.height = height;
+        this.minMatch = minMatch;
+        int words = (width * height + 63) >>> 6;
+        this.horizontalMoves = new long[words];
+        this.verticalMoves = new long[words];
+        this.pendingBits = new long[words];
+        this.pendingCells = new int[width * height];
+    }
+
+    /**
+     * 格子(row, col)发生变化 - 以它为中心十字范围内的格子作为端点的交换都需要重新评估
+     */
+    void invalidate(int row, int col) {
+        for (int r = Math.max(0, row - REACH); r <= Math.min(height - 1, row + REACH); r++) {
+            markEndpoint(r, col);
+        }
+        for (int c = Math.max(0, col - REACH); c <= Math.min(width - 1, col + REACH); c++) {
+            if (c != col) markEndpoint(row, c);
+        }
+    }
+
+    /**
+     * 整个棋盘发生变化
+     */
+    void invalidateAll() {
+        for (int cell = 0; cell < width * height; cell++) {
+            markPending(cell);
+        }
+    }
+
+    /**
+     * 端点所在的四个交换：向右、向下，以及左侧格向右、上方格向下
+     */
+    private void markEndpoint(int row, int col) {
+        int cell = row * width + col;
+        markPending(cell);
+        if (col > 0) markPending(cell - 1);
+        if (row > 0) markPending(cell - width);
+    }
+
+    private void markPending(int cell) {
+        long bit = 1L << cell;
+        int word = cell >>> 6;
+        if ((pendingBits[word] & bit) != 0) return;
+        pendingBits[word] |= bit;
+        pendingCells[pendingCount++] = cell;
+    }
+
+    /**
+     * 重新评估所有待定的交换
+     */
+    private void refresh() {
+        for (int i = 0; i < pendingCount; i++) {
+            int cell = pendingCells[i];
+            int word = cell >>> 6;
+            long bit = 1L << cell;
+            pendingBits[word] &= ~bit;
+
+            int row = cell / width;
+            int col = cell % width;
+            boolean horizontal = col + 1 < width && evaluate(row, col, row, col + 1);
+            boolean vertical = row + 1 < height && evaluate(row, col, row + 1, col);
+            moveCount += update(horizontalMoves, word, bit, horizontal);
+            moveCount += update(verticalMoves, word, bit, vertical);
+        }
+        pendingCount = 0;
+    }
+
+    /**
+     * 更新位并返回合法交换数量的变化
+     */
+    private static int update(long[] moves, int word, long bit, boolean legal) {
+        boolean wasLegal = (moves[word] & bit) != 0;
+        if (legal == wasLegal) return 0;
+        moves[word] ^= bit;
+        return legal ? 1 : -1;
+    }
+
+    /**
+     * 不修改棋盘，判断交换两格后是否形成匹配
+     */
+    private boolean evaluate(int row1, int col1, int row2, int col2) {
+        int type1 = engine.typeAt(row1, col1);
+        int type2 = engine.typeAt(row2, col2);
+        if (type1 == type2 || type1 == Tile.TYPE_EMPTY || type2 == Tile.TYPE_EMPTY) {
+            return false;
+        }
+        return formsRun(row1, col1, type2, row2, col2) || formsRun(row2, col2, type1, row1, col1);
+    }
+
+    /**
+     * 格子(row, col)换成type后是否形成连消；(otherRow, otherCol)为交换的另一格，交换后必不同色
+     */
+    private boolean formsRun(int row, int col, int type, int otherRow, int otherCol) {
+        int horizontal = 1;
+        for (int c = col - 1; c >= 0 && c >= col - REACH && !(row == otherRow && c == otherCol)
+                && engine.typeAt(row, c) == type; c--) {
+            horizontal++;
+        }
+        for (int c = col + 1; c < width && c <= col + REACH && !(row == otherRow && c == otherCol)
+                && engine.typeAt(row, c) == type; c++) {
+            horizontal++;
+        }
+        if (horizontal >= minMatch) return true;
+
+        int vertical = 1;
+        for (int r = row - 1; r >= 0 && r >= row - REACH && !(r == otherRow && col == otherCol)
+                && engine.typeAt(r, col) == type; r--) {
+            vertical++;
+        }
+        for (int r = row + 1; r < height && r <= row + REACH && !(r == otherRow && col == otherCol)
+                && engine.typeAt(r, col) == type; r++) {
+            vertical++;
+        }
+        return vertical >= minMatch;
+    }
+
+    /**
+     * 交换后经过两格的连消所含格子数（不计链式反应），不合法时返回0
+     */
+    int matchSize(int row1, int col1, int row2, int col2) {
+        if (!isLegal(row1, col1, row2, col2)) return 0;
+        int type1 = engine.typeAt(row1, col1);
+        int type2 = engine.typeAt(row2, col2);
+        return runCells(row1, col1, type2, row2, col2) + runCells(row2, col2, type1, row1, col1);
+    }
+
+    /**
+     * 格子(row, col)换成type后，经过它的水平和垂直连消共包含多少格
+     */
+    private int runCells(int row, int col, int type, int otherRow, int otherCol) {
+        int left = 0;
+        while (col - left - 1 >= 0 && !(row == otherRow && col - left - 1 == otherCol)
+                && engine.typeAt(row, col - left - 1) == type) {
+            left++;
+        }
+        int right = 0;
+        while (col + right + 1 < width && !(row == otherRow && col + right + 1 == otherCol)
+                && engine.typeAt(row, col + right + 1) == type) {
+            right++;
+        }
+        int up = 0;
+        while (row - up - 1 >= 0 && !(row - up - 1 == otherRow && col == otherCol)
+                && engine.typeAt(row - up - 1, col) == type) {
+            up++;
+        }
+        int down = 0;
+        while (row + down + 1 < height && !(row + down + 1 == otherRow && col == otherCol)
+                && engine.typeAt(row + down + 1, col) == type) {
+            down++;
+        }
+
+        int horizontal = left + right + 1;
+        int vertical = up + down + 1;
+        int cells = 0;
+        if (horizontal >= minMatch) cells += horizontal;
+        if (vertical >= minMatch) cells += vertical;
+        // 十字交叉时该格只算一次
+        if (horizontal >= minMatch && vertical >= minMatch) cells--;
+        return cells;
+    }
+
+    /**
+     * 列出所有合法交换，每个交换依次写入row1, col1, row2, col2
+     *
+     * @return 写入的交换个数，受out长度限制
+     */
+    int listMoves(int[] out) {
+        refresh();
+        int count = 0;
+        int limit = out.length / 4;
+        for (int word = 0; word < horizontalMoves.length && count < limit; word++) {
+            long bits = horizontalMoves[word] | verticalMoves[word];
+            while (bits != 0 && count < limit) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int cell = (word << 6) + bit;
+                int row = cell / width;
+                int col = cell % width;
+                if ((horizontalMoves[word] & (1L << bit)) != 0 && count < limit) {
+                    writeMove(out, count++, row, col, row, col + 1);
+                }
+                if ((verticalMoves[word] & (1L << bit)) != 0 && count < limit) {
+                    writeMove(out, count++, row, col, row + 1, col);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void writeMove(int[] out, int index, int row1, int col1, int row2, int col2) {
+        out[index * 4] = row1;
+        out[index * 4 + 1] = col1;
+        out[index * 4 + 2] = row2;
+        out[index * 4 + 3] = col2;
+    }
+
+    /**
+     * 两个相邻格子之间的交换是否合法
+     */
+    boolean isLegal(int row1, int col1, int row2, int col2) {
+        refresh();
+        int cell = Math.min(row1 * width + col1, row2 * width + col2);
+        long[] moves = row1 == row2 ? horizontalMoves : verticalMoves;
+        return (moves[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    int getMoveCount() {
+        refresh();
+        return moveCount;
+    }
+
+    /**
+     * 查找任意一个合法交换，写入{row1, col1, row2, col2}
+     *
+     * @return 是否找到
+     */
+    boolean findMove(int[] out) {
+        refresh();
+        if (moveCount == 0) return false;
+        for (int word = 0; word < horizontalMoves.length; word++) {
+            long bits = horizontalMoves[word] | verticalMoves[word];
+            if (bits == 0) continue;
+            int cell = (word << 6) + Long.numberOfTrailingZeros(bits);
+            boolean horizontal = (horizontalMoves[word] & (1L << cell)) != 0;
+            out[0] = cell / width;
+            out[1] = cell % width;
+            out[2] = horizontal ? out[0] : out[0] + 1;
+            out[3] = horizontal ? out[1] + 1 : out[1];
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,180 @@
+package com.gamedev.match3.engine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 对局记录 - 保存开局种子和每一次成功的交换，配合MoveReplayer重现整局
+ *
+ * 交换按左/上格子的下标压缩成一个int：(row * width + col) * 2 + (垂直 ? 1 : 0)。
+ * 引擎在开局时调用begin，在swapTiles成功时调用record。
+ */
+public class MoveLog {
+    private static final int MAGIC = 0x4D334C47; // "M3LG"
+    // 版本2在分数之后增加了棋盘哈希
+    private static final int VERSION = 2;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int width;
+    private int height;
+    private long seed;
+    private int[] moves = new int[INITIAL_CAPACITY];
+    private int moveCount = 0;
+    // 最近一次链式反应结束时的分数和棋盘哈希（BoardState.longHash），回放后用于核对
+    private int score = 0;
+    private long boardHash = 0;
+    // 版本1的记录没有棋盘哈希
+    private boolean hasBoardHash = true;
+
+    public MoveLog() {
+    }
+
+    /**
+     * 复制一份记录，例如在游戏线程继续记录时交给后台线程写出
+     */
+    public MoveLog(MoveLog other) {
+        width = other.width;
+        height = other.height;
+        seed = other.seed;
+        moves = Arrays.copyOf(other.moves, Math.max(other.moveCount, INITIAL_CAPACITY));
+        moveCount = other.moveCount;
+        score = other.score;
+        boardHash = other.boardHash;
+        hasBoardHash = other.hasBoardHash;
+    }
+
+    /**
+     * 开始记录新的一局
+     */
+    void begin(int width, int height, long seed) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.moveCount = 0;
+        this.score = 0;
+        this.boardHash = 0;
+        this.hasBoardHash = true;
+    }
+
+    /**
+     * 记录一次成功的交换
+     */
+    void record(int row1, int col1, int row2, int col2) {
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        int cell = Math.min(row1 * width + col1, row2 * width + col2);
+        moves[moveCount++] = cell * 2 + (row1 == row2 ? 0 : 1);
+    }
+
+    /**
+     * 记录链式反应结束后的分数和棋盘
+     */
+    void setResult(int score, long boardHash) {
+        this.score = score;
+        this.boardHash = boardHash;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * 最近一次链式反应结束时的棋盘哈希，与GameEngine.getBoardHash比较
+     */
+    public long getBoardHash() {
+        return boardHash;
+    }
+
+    /**
+     * 是否记录了棋盘哈希，旧版本的记录没有
+     */
+    public boolean hasBoardHash() {
+        return hasBoardHash;
+    }
+
+    /**
+     * 取出第index次交换，依次写入row1, col1, row2, col2
+     */
+    public void getMove(int index, int[] out) {
+        int packed = moves[index];
+        int cell = packed >>> 1;
+        out[0] = cell / width;
+        out[1] = cell % width;
+        boolean vertical = (packed & 1) != 0;
+        out[2] = vertical ? out[0] + 1 : out[0];
+        out[3] = vertical ? out[1] : out[1] + 1;
+    }
+
+    /**
+     * 写出为二进制格式，不关闭流
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(width);
+        data.writeInt(height);
+        data.writeLong(seed);
+        data.writeInt(score);
+        data.writeLong(boardHash);
+        data.writeInt(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            data.writeInt(moves[i]);
+        }
+        data.flush();
+    }
+
+    /**
+     * 从writeTo写出的数据读取记录
+     */
+    public static MoveLog readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a move log");
+        }
+        int version = data.readInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported move log version: " + version);
+        }
+
+        MoveLog log = new MoveLog();
+        log.begin(data.readInt(), data.readInt(), data.readLong());
+        log.score = data.readInt();
+        if (version >= 2) {
+            log.boardHash = data.readLong();
+        } else {
+            log.hasBoardHash = false;
+        }
+        int count = data.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid move count: " + count);
+        }
+        log.moves = new int[Math.max(count, INITIAL_CAPACITY)];
+        for (int i = 0; i < count; i++) {
+            log.moves[i] = data.readInt();
+        }
+        log.moveCount = count;
+        return log;
+    }
+}
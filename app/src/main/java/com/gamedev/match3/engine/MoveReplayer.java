@@ -0,0 +1,43 @@
+package com.gamedev.match3.engine;
+
+/**
+ * 对局回放 - 按记录的种子开局并依次执行交换，每步一次性处理完链式反应
+ *
+ * 不渲染、不限帧，回放结果（分数、棋盘）与记录时的对局一致。
+ */
+public final class MoveReplayer {
+    private MoveReplayer() {
+    }
+
+    /**
+     * 在新引擎上回放整局
+     */
+    public static GameEngine replay(MoveLog log) {
+        GameEngine engine = new GameEngine(log.getWidth(), log.getHeight(), log.getSeed());
+        playMoves(engine, log);
+        return engine;
+    }
+
+    /**
+     * 复用已有引擎回放整局，引擎棋盘大小必须与记录一致
+     */
+    public static void replay(MoveLog log, GameEngine engine) {
+        if (engine.getBoardWidth() != log.getWidth() || engine.getBoardHeight() != log.getHeight()) {
+            throw new IllegalArgumentException("Board size mismatch: " + engine.getBoardWidth() + "x"
+                    + engine.getBoardHeight() + " vs " + log.getWidth() + "x" + log.getHeight());
+        }
+        engine.reset(log.getSeed());
+        playMoves(engine, log);
+    }
+
+    private static void playMoves(GameEngine engine, MoveLog log) {
+        int[] move = new int[4];
+        for (int i = 0; i < log.getMoveCount(); i++) {
+            log.getMove(i, move);
+            if (!engine.swapTiles(move[0], move[1], move[2], move[3])) {
+                throw new IllegalStateException("Move " + i + " rejected during replay");
+            }
+            engine.update();
+        }
+    }
+}
@@ -1,23 +1,73 @@
 package com.gamedev.match3.engine;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * 通用对象池 - 用于复用对象，减少GC压力
+ *
+ * 空闲对象放在有界无锁环形队列中（Vyukov多生产者多消费者队列），
+ * obtain和release都是O(1)且不加锁，可以在多个线程间使用。
+ * 池不跟踪借出的对象，同一个对象不能重复归还。
  */
 public abstract class ObjectPool<T> {
-    private List<T> availableObjects;
-    private List<T> inUseObjects;
-    private int poolSize;
+    /**
+     * 池中对象数量达到容量后的处理方式
+     */
+    public enum Overflow {
+        CREATE,     // 没有空闲对象时照常创建，多出的对象归还时丢弃
+        RETURN_NULL // 已创建的对象达到容量且都被借出时，obtain返回null
+    }
+
+    private final AtomicLongArray sequences;
+    private final Object[] items;
+    private final int mask;
+    // 下一个取出和放入的位置
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
 
+    private final int capacity;
+    private final Overflow overflow;
+
+    // 统计
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong creations = new AtomicLong();
+    private final AtomicLong discards = new AtomicLong();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    /**
+     * 预先创建initialSize个对象，容量与之相同，不足时照常创建
+     */
     public ObjectPool(int initialSize) {
-        this.poolSize = initialSize;
-        this.availableObjects = new ArrayList<>(initialSize);
-        this.inUseObjects = new ArrayList<>(initialSize);
+        this(initialSize, Math.max(initialSize, 1), Overflow.CREATE);
+    }
+
+    /**
+     * @param initialSize 预先创建的对象数
+     * @param capacity    最多保留的空闲对象数，向上取2的幂
+     * @param overflow    对象数达到容量后的处理方式
+     */
+    public ObjectPool(int initialSize, int capacity, Overflow overflow) {
+        if (initialSize < 0 || capacity < 1 || initialSize > capacity) {
+            throw new IllegalArgumentException("Invalid pool size: " + initialSize + "/" + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 1);
+        this.sequences = new AtomicLongArray(size);
+        this.items = new Object[size];
+        this.mask = size - 1;
+        this.capacity = size;
+        this.overflow = overflow;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
 
         for (int i = 0; i < initialSize; i++) {
-            availableObjects.add(create());
+            creations.incrementAndGet();
+            offer(create());
         }
     }
 
@@ -32,45 +82,175 @@ public abstract class ObjectPool<T> {
     protected abstract void reset(T obj);
 
     /**
-     * 获取对象
+     * 获取对象，策略为RETURN_NULL且对象已全部借出时返回null
      */
-    public synchronized T obtain() {
-        T obj;
-        if (availableObjects.size() > 0) {
-            obj = availableObjects.remove(availableObjects.size() - 1);
+    public T obtain() {
+        T obj = poll();
+        if (obj != null) {
+            hits.incrementAndGet();
         } else {
+            misses.incrementAndGet();
+            if (!reserveCreation()) {
+                return null;
+            }
             obj = create();
         }
-        inUseObjects.add(obj);
+
+        int used = inUse.incrementAndGet();
+        int peak;
+        while (used > (peak = peakInUse.get()) && !peakInUse.compareAndSet(peak, used)) {
+            // 其他线程同时更新了峰值，重试
+        }
         return obj;
     }
 
     /**
-     * 归还对象
+     * 归还对象，队列已满时丢弃
+     */
+    public void release(T obj) {
+        inUse.decrementAndGet();
+        reset(obj);
+        if (!offer(obj)) {
+            discards.incrementAndGet();
+        }
+    }
+
+    /**
+     * 丢弃所有空闲对象，借出的对象归还后仍可复用
+     */
+    public void clear() {
+        while (poll() != null) {
+            discards.incrementAndGet();
+        }
+    }
+
+    /**
+     * 计入一次创建；RETURN_NULL策略下池中对象已达到容量时返回false
+     */
+    private boolean reserveCreation() {
+        if (overflow == Overflow.CREATE) {
+            creations.incrementAndGet();
+            return true;
+        }
+        long created;
+        do {
+            created = creations.get();
+            if (created - discards.get() >= capacity) return false;
+        } while (!creations.compareAndSet(created, created + 1));
+        return true;
+    }
+
+    /**
+     * 放入空闲对象
+     *
+     * @return 队列已满时返回false
      */
-    public synchronized void release(T obj) {
-        if (inUseObjects.remove(obj)) {
-            reset(obj);
-            availableObjects.add(obj);
+    private boolean offer(T obj) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items[index] = obj;
+                    // 序号写入在对象之后，取出方读到序号时一定能看到对象
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // 槽位上一轮的对象可能已被取走但序号尚未更新，只有真正放满时才算满
+                if (pos - head.get() >= capacity) return false;
+                Thread.yield();
+                pos = tail.get();
+            } else {
+                pos = tail.get();
+            }
         }
     }
 
     /**
-     * 释放所有对象
+     * 取出空闲对象，队列为空时返回null
      */
-    public synchronized void clear() {
-        availableObjects.clear();
-        inUseObjects.clear();
+    @SuppressWarnings("unchecked")
+    private T poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    T obj = (T) items[index];
+                    items[index] = null;
+                    sequences.lazySet(index, pos + mask + 1);
+                    return obj;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                // 放入方可能已占住槽位但还没写完，只有真正没有对象时才算空
+                if (pos >= tail.get()) return null;
+                Thread.yield();
+                pos = head.get();
+            } else {
+                pos = head.get();
+            }
+        }
     }
 
     /**
-     * 获取对象池信息
+     * 池管理的对象总数：空闲加借出，不含已丢弃的对象
      */
     public int getPoolSize() {
-        return availableObjects.size();
+        return (int) (creations.get() - discards.get());
+    }
+
+    /**
+     * 空闲对象数
+     */
+    public int getFreeCount() {
+        return (int) (tail.get() - head.get());
     }
 
     public int getInUseSize() {
-        return inUseObjects.size();
+        return inUse.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * obtain直接取到空闲对象的次数
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * obtain没有空闲对象的次数
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * 创建的对象总数，包括预先创建的
+     */
+    public long getCreations() {
+        return creations.get();
+    }
+
+    /**
+     * 因队列已满或clear而丢弃的对象数
+     */
+    public long getDiscards() {
+        return discards.get();
+    }
+
+    /**
+     * 同时借出对象数的峰值，可据此设置容量
+     */
+    public int getPeakInUse() {
+        return peakInUse.get();
     }
 }
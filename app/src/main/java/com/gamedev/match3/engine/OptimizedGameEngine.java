@@ -1,23 +1,38 @@
 package com.gamedev.match3.engine;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
+import java.util.Locale;
 
 /**
  * 优化的游戏引擎 - 包含性能优化和内存管理
  */
 public class OptimizedGameEngine extends GameEngine {
+    private static final PerformanceMonitor.Phase[] PHASES = PerformanceMonitor.Phase.values();
+    private static final String[] PHASE_NAMES = new String[PHASES.length];
+
+    static {
+        for (int i = 0; i < PHASES.length; i++) {
+            PHASE_NAMES[i] = PHASES[i].name().toLowerCase(Locale.ROOT);
+        }
+    }
+
     private PerformanceMonitor performanceMonitor;
-    private TilePool tilePool;
-    private static final int TILE_POOL_SIZE = 100;
 
     public OptimizedGameEngine() {
         super();
         this.performanceMonitor = new PerformanceMonitor();
-        this.tilePool = new TilePool(TILE_POOL_SIZE);
+    }
+
+    public OptimizedGameEngine(int width, int height) {
+        super(width, height);
+        this.performanceMonitor = new PerformanceMonitor();
+    }
+
+    /**
+     * 从存档恢复，存档无效时开新局
+     */
+    public OptimizedGameEngine(int width, int height, GameStateStore savedState) {
+        super(width, height, savedState);
+        this.performanceMonitor = new PerformanceMonitor();
     }
 
     /**
@@ -28,42 +43,54 @@ public class OptimizedGameEngine extends GameEngine {
     }
 
     /**
-     * 更新帧统计
+     * 获取性能统计字符串：FPS、帧耗时分位数、卡顿帧数和内存
      */
-    public void updateFrameStats() {
-        performanceMonitor.updateFrame();
+    public String getPerformanceStats() {
+        return formatPerformanceStats(new HudFormatter()).toString();
     }
 
     /**
-     * 获取性能统计字符串
+     * 把性能统计写入HUD缓冲，每帧绘制时使用，不产生分配
      */
-    public String getPerformanceStats() {
-        return String.format("FPS: %.1f | Mem: %dMB / %dMB (%.1f%%)",
-                performanceMonitor.getAverageFps(),
-                performanceMonitor.getUsedMemoryMB(),
-                performanceMonitor.getTotalMemoryMB(),
-                performanceMonitor.getMemoryUsagePercent());
+    public HudFormatter formatPerformanceStats(HudFormatter out) {
+        FrameHistogram frames = performanceMonitor.getFrameTimes();
+        out.append("FPS: ").append(performanceMonitor.getAverageFps(), 1)
+                .append(" | frame p50 ").append(frames.getPercentileMillis(50), 1)
+                .append(" p95 ").append(frames.getPercentileMillis(95), 1)
+                .append(" p99 ").append(frames.getPercentileMillis(99), 1)
+                .append(" max ").append(frames.getMaxMillis(), 1)
+                .append("ms | jank ").append(performanceMonitor.getJankFrames())
+                .append(" (").append(performanceMonitor.getSevereJankFrames())
+                .append(") | Mem: ").append(performanceMonitor.getUsedMemoryMB())
+                .append("MB / ").append(performanceMonitor.getTotalMemoryMB())
+                .append("MB (").append(performanceMonitor.getMemoryUsagePercent(), 1)
+                .append("%)");
+        return out;
     }
 
     /**
-     * 瓷砖对象池
+     * 各阶段耗时的p95（毫秒）
      */
-    public static class TilePool extends ObjectPool<Tile> {
-        public TilePool(int initialSize) {
-            super(initialSize);
-        }
+    public String getPhaseStats() {
+        return formatPhaseStats(new HudFormatter()).toString();
+    }
 
-        @Override
-        protected Tile create() {
-            return new Tile(Tile.TYPE_EMPTY, 0, 0);
+    /**
+     * 把各阶段耗时的p95写入HUD缓冲，不产生分配
+     */
+    public HudFormatter formatPhaseStats(HudFormatter out) {
+        out.append("p95");
+        for (int i = 0; i < PHASES.length; i++) {
+            out.append(" | ").append(PHASE_NAMES[i]).append(' ')
+                    .append(performanceMonitor.getPhaseTimes(PHASES[i]).getPercentileMillis(95), 2);
         }
+        return out;
+    }
 
-        @Override
-        protected void reset(Tile obj) {
-            obj.type = Tile.TYPE_EMPTY;
-            obj.row = 0;
-            obj.col = 0;
-            obj.isMarked = false;
-        }
+    /**
+     * 复制当前的性能统计，用于在其他线程导出并对比不同运行的结果
+     */
+    public PerformanceMonitor snapshotPerformanceStats() {
+        return new PerformanceMonitor(performanceMonitor);
     }
 }
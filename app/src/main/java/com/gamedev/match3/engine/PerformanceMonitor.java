@@ -1,34 +1,143 @@
 package com.gamedev.match3.engine;
 
+import java.util.Locale;
+
 /**
- * 游戏性能监控 - 跟踪CPU和内存使用
+ * 游戏性能监控 - 帧耗时直方图、各阶段耗时、卡顿计数和内存使用
+ *
+ * 每帧依次调用beginFrame、若干对beginPhase/endPhase、endFrame，时间使用System.nanoTime。
+ * 帧耗时为beginFrame到endFrame的时间，超过帧周期计为卡顿，超过两个周期计为严重卡顿。
+ * 只能在游戏循环线程调用，记录过程不产生分配。
  */
 public class PerformanceMonitor {
-    private long lastFrameTime = System.currentTimeMillis();
+    /**
+     * 帧的阶段
+     */
+    public enum Phase {
+        INPUT,      // 执行输入命令
+        ENGINE,     // 游戏逻辑和链式反应
+        PARTICLES,  // 粒子模拟
+        ANIMATIONS, // 瓷砖动画和浮动文字
+        DRAW,       // 绘制到画布
+        POST        // 提交画布
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final int FPS_SAMPLE_SIZE = 60; // 统计60帧的平均FPS
+
+    private final FrameHistogram frameTimes = new FrameHistogram();
+    private final FrameHistogram[] phaseTimes = new FrameHistogram[PHASES.length];
+    private final long[] phaseStart = new long[PHASES.length];
+    private long frameBudgetNanos = 1_000_000_000L / 60;
+    private int jankFrames = 0;
+    private int severeJankFrames = 0;
+    // 粒子绘制调用数：最近一帧和最大值
+    private int particleDrawCalls = 0;
+    private int maxParticleDrawCalls = 0;
+
+    private long frameStart = 0;
+    private long fpsWindowStart = -1;
     private float averageFps = 60;
     private int frameCount = 0;
     private long totalMemory = 0;
     private long usedMemory = 0;
 
-    private static final int FPS_SAMPLE_SIZE = 60; // 统计60帧的平均FPS
+    public PerformanceMonitor() {
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseTimes[i] = new FrameHistogram();
+        }
+    }
+
+    /**
+     * 复制一份统计，之后可以在其他线程导出；须在游戏循环停止时调用
+     */
+    public PerformanceMonitor(PerformanceMonitor other) {
+        this();
+        frameTimes.copyFrom(other.frameTimes);
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseTimes[i].copyFrom(other.phaseTimes[i]);
+        }
+        frameBudgetNanos = other.frameBudgetNanos;
+        jankFrames = other.jankFrames;
+        severeJankFrames = other.severeJankFrames;
+        particleDrawCalls = other.particleDrawCalls;
+        maxParticleDrawCalls = other.maxParticleDrawCalls;
+        averageFps = other.averageFps;
+        totalMemory = other.totalMemory;
+        usedMemory = other.usedMemory;
+    }
+
+    /**
+     * 设置目标帧率，帧耗时超过其周期计为卡顿
+     */
+    public void setTargetFrameRate(int rate) {
+        frameBudgetNanos = 1_000_000_000L / rate;
+    }
 
     /**
-     * 更新帧统计
+     * 开始一帧
      */
-    public void updateFrame() {
-        long currentTime = System.currentTimeMillis();
-        long deltaTime = currentTime - lastFrameTime;
-        lastFrameTime = currentTime;
+    public void beginFrame() {
+        frameStart = System.nanoTime();
+        if (fpsWindowStart < 0) {
+            fpsWindowStart = frameStart;
+        }
 
         frameCount++;
 
-        // 每60帧计算一次平均FPS
+        // 每60帧按实际经过的时间计算一次平均FPS
         if (frameCount % FPS_SAMPLE_SIZE == 0) {
-            averageFps = FPS_SAMPLE_SIZE * 1000.0f / deltaTime;
+            averageFps = FPS_SAMPLE_SIZE * 1_000_000_000f / Math.max(1, frameStart - fpsWindowStart);
+            fpsWindowStart = frameStart;
             updateMemoryStats();
         }
     }
 
+    public void beginPhase(Phase phase) {
+        phaseStart[phase.ordinal()] = System.nanoTime();
+    }
+
+    public void endPhase(Phase phase) {
+        phaseTimes[phase.ordinal()].record(System.nanoTime() - phaseStart[phase.ordinal()]);
+    }
+
+    /**
+     * 记录本帧粒子的绘制调用数
+     */
+    public void recordParticleDrawCalls(int calls) {
+        particleDrawCalls = calls;
+        if (calls > maxParticleDrawCalls) {
+            maxParticleDrawCalls = calls;
+        }
+    }
+
+    /**
+     * 结束一帧，记录帧耗时
+     */
+    public void endFrame() {
+        long duration = System.nanoTime() - frameStart;
+        frameTimes.record(duration);
+        if (duration > frameBudgetNanos) {
+            jankFrames++;
+            if (duration > 2 * frameBudgetNanos) {
+                severeJankFrames++;
+            }
+        }
+    }
+
+    /**
+     * 清空统计，例如开始新的对比测试前
+     */
+    public void reset() {
+        frameTimes.reset();
+        for (FrameHistogram histogram : phaseTimes) {
+            histogram.reset();
+        }
+        jankFrames = 0;
+        severeJankFrames = 0;
+        maxParticleDrawCalls = 0;
+    }
+
     /**
      * 更新内存统计
      */
@@ -45,6 +154,39 @@ public class PerformanceMonitor {
         return averageFps;
     }
 
+    public FrameHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    public FrameHistogram getPhaseTimes(Phase phase) {
+        return phaseTimes[phase.ordinal()];
+    }
+
+    /**
+     * 耗时超过帧周期的帧数
+     */
+    public int getJankFrames() {
+        return jankFrames;
+    }
+
+    /**
+     * 耗时超过两个帧周期的帧数
+     */
+    public int getSevereJankFrames() {
+        return severeJankFrames;
+    }
+
+    /**
+     * 最近一帧的粒子绘制调用数
+     */
+    public int getParticleDrawCalls() {
+        return particleDrawCalls;
+    }
+
+    public int getMaxParticleDrawCalls() {
+        return maxParticleDrawCalls;
+    }
+
     /**
      * 获取使用的内存（MB）
      */
@@ -67,6 +209,42 @@ public class PerformanceMonitor {
         return (usedMemory * 100.0f) / totalMemory;
     }
 
+    /**
+     * 导出全部统计为JSON，用于保存和对比不同版本或设备的运行结果
+     */
+    public String exportJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n  \"frameBudgetMs\": ").append(format(frameBudgetNanos / 1_000_000f));
+        json.append(",\n  \"averageFps\": ").append(format(averageFps));
+        json.append(",\n  \"jankFrames\": ").append(jankFrames);
+        json.append(",\n  \"severeJankFrames\": ").append(severeJankFrames);
+        json.append(",\n  \"maxParticleDrawCalls\": ").append(maxParticleDrawCalls);
+        json.append(",\n  \"usedMemoryMB\": ").append(getUsedMemoryMB());
+        json.append(",\n  \"frame\": ");
+        appendHistogram(json, frameTimes);
+        json.append(",\n  \"phases\": {");
+        for (int i = 0; i < PHASES.length; i++) {
+            json.append(i == 0 ? "\n    \"" : ",\n    \"").append(PHASES[i].name().toLowerCase(Locale.ROOT)).append("\": ");
+            appendHistogram(json, phaseTimes[i]);
+        }
+        json.append("\n  }\n}\n");
+        return json.toString();
+    }
+
+    private static void appendHistogram(StringBuilder json, FrameHistogram histogram) {
+        json.append("{\"count\": ").append(histogram.getCount())
+                .append(", \"meanMs\": ").append(format(histogram.getMeanMillis()))
+                .append(", \"p50Ms\": ").append(format(histogram.getPercentileMillis(50)))
+                .append(", \"p95Ms\": ").append(format(histogram.getPercentileMillis(95)))
+                .append(", \"p99Ms\": ").append(format(histogram.getPercentileMillis(99)))
+                .append(", \"maxMs\": ").append(format(histogram.getMaxMillis()))
+                .append('}');
+    }
+
+    private static String format(float value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
     /**
      * 强制垃圾回收（谨慎使用）
      */
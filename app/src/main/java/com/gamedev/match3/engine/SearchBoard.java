@@ -0,0 +1,208 @@
+package com.gamedev.match3.engine;
+
+import java.util.Arrays;
+
+/**
+ * 搜索用棋盘 - 每格一个byte，可以快速复制，与GameEngine无关联
+ *
+ * 交换以左/上格子下标压缩为int：cell * 2 + (垂直 ? 1 : 0)，与MoveLog相同。
+ * 规则与GameEngine一致：每轮消除全部连消后下落，顶部空位随机填充；
+ * 不传随机数时空位保持为空，空格永不匹配，用于不模拟填充的推演。
+ */
+public final class SearchBoard {
+    final int width;
+    final int height;
+    private final byte[] cells;
+    // 消除标记：marked[cell] == stamp表示本轮已标记，避免每轮清空
+    private final int[] marked;
+    private int stamp = 0;
+    // 每列最低的标记行，-1表示该列没有标记
+    private final int[] lowestMarked;
+
+    public SearchBoard(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[width * height];
+        this.marked = new int[width * height];
+        this.lowestMarked = new int[width];
+    }
+
+    public void load(BoardState state) {
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = (byte) state.getCell(cell);
+        }
+    }
+
+    public void copyFrom(SearchBoard other) {
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+    }
+
+    /**
+     * 按BoardState相同的方式打包后混合得到64位哈希
+     */
+    long hash() {
+        long hash = width * 31L + height;
+        int cell = 0;
+        while (cell < cells.length) {
+            long word = 0;
+            int end = Math.min(cell + BoardState.CELLS_PER_WORD, cells.length);
+            for (int shift = 0; cell < end; cell++, shift += BoardState.BITS_PER_CELL) {
+                word |= (long) cells[cell] << shift;
+            }
+            hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+
+    /**
+     * 列出所有合法交换
+     *
+     * @param out 长度至少为格子数的2倍
+     * @return 交换个数
+     */
+    public int listMoves(int[] out) {
+        int count = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int cell = row * width + col;
+                if (col + 1 < width && swapMatches(cell, row, col, cell + 1, row, col + 1)) {
+                    out[count++] = cell * 2;
+                }
+                if (row + 1 < height && swapMatches(cell, row, col, cell + width, row + 1, col)) {
+                    out[count++] = cell * 2 + 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 交换两格后是否形成连消，棋盘不变
+     */
+    private boolean swapMatches(int a, int rowA, int colA, int b, int rowB, int colB) {
+        byte typeA = cells[a];
+        byte typeB = cells[b];
+        if (typeA == typeB || typeA == Tile.TYPE_EMPTY || typeB == Tile.TYPE_EMPTY) {
+            return false;
+        }
+        cells[a] = typeB;
+        cells[b] = typeA;
+        boolean matches = formsRun(a, rowA, colA) || formsRun(b, rowB, colB);
+        cells[a] = typeA;
+        cells[b] = typeB;
+        return matches;
+    }
+
+    /**
+     * 经过cell的水平或垂直同色段是否达到最小长度，只需检查两侧各MIN_MATCH - 1格
+     */
+    private boolean formsRun(int cell, int row, int col) {
+        byte type = cells[cell];
+        int reach = GameEngine.MIN_MATCH - 1;
+
+        int horizontal = 1;
+        for (int c = col - 1; c >= 0 && c >= col - reach && cells[cell - col + c] == type; c--) horizontal++;
+        for (int c = col + 1; c < width && c <= col + reach && cells[cell - col + c] == type; c++) horizontal++;
+        if (horizontal >= GameEngine.MIN_MATCH) return true;
+
+        int vertical = 1;
+        for (int r = row - 1; r >= 0 && r >= row - reach && cells[r * width + col] == type; r--) vertical++;
+        for (int r = row + 1; r < height && r <= row + reach && cells[r * width + col] == type; r++) vertical++;
+        return vertical >= GameEngine.MIN_MATCH;
+    }
+
+    /**
+     * 执行交换并处理完整的链式反应，空位用random填充
+     *
+     * @param random 为null时不填充，空位保持为空
+     * @return 本次交换得到的分数
+     */
+    public int play(int move, FastRandom random) {
+        int a = move >>> 1;
+        int b = (move & 1) == 0 ? a + 1 : a + width;
+        byte type = cells[a];
+        cells[a] = cells[b];
+        cells[b] = type;
+
+        int gained = 0;
+        int matched;
+        while ((matched = markMatches()) > 0) {
+            gained += GameEngine.scoreFor(matched);
+            collapse(random);
+        }
+        return gained;
+    }
+
+    /**
+     * 标记所有连消格子，并记录每列最低的标记行
+     *
+     * @return 标记的格子数
+     */
+    private int markMatches() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marked, 0);
+            stamp = 1;
+        }
+        Arrays.fill(lowestMarked, -1);
+        int count = 0;
+        for (int row = 0; row < height; row++) {
+            int base = row * width;
+            int start = 0;
+            for (int col = 1; col <= width; col++) {
+                if (col < width && cells[base + col] == cells[base + start]) continue;
+                if (col - start >= GameEngine.MIN_MATCH && cells[base + start] != Tile.TYPE_EMPTY) {
+                    for (int c = start; c < col; c++) {
+                        count += mark(row, c);
+                    }
+                }
+                start = col;
+            }
+        }
+        for (int col = 0; col < width; col++) {
+            int start = 0;
+            for (int row = 1; row <= height; row++) {
+                if (row < height && cells[row * width + col] == cells[start * width + col]) continue;
+                if (row - start >= GameEngine.MIN_MATCH && cells[start * width + col] != Tile.TYPE_EMPTY) {
+                    for (int r = start; r < row; r++) {
+                        count += mark(r, col);
+                    }
+                }
+                start = row;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return 新标记时返回1，已标记过返回0
+     */
+    private int mark(int row, int col) {
+        int cell = row * width + col;
+        if (marked[cell] == stamp) return 0;
+        marked[cell] = stamp;
+        if (row > lowestMarked[col]) lowestMarked[col] = row;
+        return 1;
+    }
+
+    /**
+     * 移除标记的格子，逐列下落并从上往下填充，没有标记的列跳过
+     */
+    private void collapse(FastRandom random) {
+        for (int col = 0; col < width; col++) {
+            if (lowestMarked[col] < 0) continue;
+            int write = lowestMarked[col];
+            for (int row = write; row >= 0; row--) {
+                int cell = row * width + col;
+                if (marked[cell] != stamp) {
+                    cells[write * width + col] = cells[cell];
+                    write--;
+                }
+            }
+            for (; write >= 0; write--) {
+                cells[write * width + col] = (byte) (random == null
+                        ? Tile.TYPE_EMPTY : random.nextInt(GameEngine.TYPE_COUNT) + 1);
+            }
+        }
+    }
+}
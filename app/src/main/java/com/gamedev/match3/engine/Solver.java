@@ -0,0 +1,268 @@
+package com.gamedev.match3.engine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 最优交换搜索 - 对随机填充做期望最大化(expectimax)搜索，用于自动对局、提示和难度评估
+ *
+ * 每个交换之后的填充是随机的，搜索对每个交换取samples个填充样本求平均；
+ * 样本的随机种子由局面哈希和交换决定，同一局面总得到相同的估值，因而可以放进置换表。
+ * 局面的值为之后depth步的期望总得分。
+ *
+ * 迭代加深：根节点的每个交换是一个fork-join任务，所有任务共享一个无锁置换表；
+ * 时间用完时放弃未完成的一层，返回上一层的最优交换。搜索只使用复制出的棋盘。
+ */
+public class Solver {
+    private static final int DEFAULT_TABLE_BITS = 18;
+    private static final int DEFAULT_SAMPLES = 3;
+    private static final int MAX_DEPTH = 8;
+    // 每评估这么多个局面检查一次时间，须为2的幂
+    private static final int DEADLINE_CHECK_INTERVAL = 16;
+    private static final long MOVE_MIX = 0xD6E8FEB86659FD93L;
+    private static final long SAMPLE_MIX = 0xA0761D6478BD642FL;
+    // 不同剩余深度的同一局面估值不同，用深度区分置换表的键
+    private static final long[] DEPTH_KEYS = new long[MAX_DEPTH + 1];
+
+    static {
+        FastRandom random = new FastRandom(0x5EED);
+        for (int i = 0; i < DEPTH_KEYS.length; i++) {
+            DEPTH_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable table;
+    private final int samples;
+
+    // 当前搜索的截止时间，在提交任务之前写入
+    private long deadline;
+    private volatile boolean aborted;
+
+    // 最近一次搜索的统计
+    private int lastDepth = 0;
+    private long lastNodes = 0;
+    private long lastNanos = 0;
+    private double lastValue = 0;
+
+    public Solver() {
+        this(ForkJoinPool.commonPool(), DEFAULT_TABLE_BITS, DEFAULT_SAMPLES);
+    }
+
+    /**
+     * @param tableBits 置换表大小为2^tableBits项，每项16字节
+     * @param samples   每个交换取的随机填充样本数
+     */
+    public Solver(ForkJoinPool pool, int tableBits, int samples) {
+        if (samples < 1) {
+            throw new IllegalArgumentException("samples must be positive: " + samples);
+        }
+        this.pool = pool;
+        this.table = new TranspositionTable(tableBits);
+        this.samples = samples;
+    }
+
+    /**
+     * 在时间预算内为引擎当前棋盘搜索最优交换
+     */
+    public boolean findBestMove(GameEngine engine, long budgetNanos, int[] out) {
+        return findBestMove(engine.snapshot(), budgetNanos, out);
+    }
+
+    /**
+     * 在时间预算内搜索最优交换，写入out = {row1, col1, row2, col2}
+     *
+     * @return 没有合法交换时返回false
+     */
+    public synchronized boolean findBestMove(BoardState state, long budgetNanos, int[] out) {
+        long start = System.nanoTime();
+        deadline = start + budgetNanos;
+        aborted = false;
+
+        int width = state.getWidth();
+        int height = state.getHeight();
+        SearchBoard root = new SearchBoard(width, height);
+        root.load(state);
+        int[] moves = new int[width * height * 2];
+        int count = root.listMoves(moves);
+        if (count == 0) return false;
+
+        long rootHash = root.hash();
+        int bestMove = moves[0];
+        double bestValue = 0;
+        int depthDone = 0;
+        long nodes = 0;
+        RootTask[] tasks = new RootTask[count];
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            for (int i = 0; i < count; i++) {
+                tasks[i] = new RootTask(root, rootHash, moves[i], depth);
+            }
+            pool.invoke(new RootSearch(tasks));
+            for (RootTask task : tasks) {
+                nodes += task.nodes;
+            }
+            if (aborted) break;
+
+            int best = 0;
+            for (int i = 1; i < count; i++) {
+                if (tasks[i].value > tasks[best].value) best = i;
+            }
+            bestMove = moves[best];
+            bestValue = tasks[best].value;
+            depthDone = depth;
+            if (System.nanoTime() >= deadline) break;
+        }
+
+        int cell = bestMove >>> 1;
+        boolean vertical = (bestMove & 1) != 0;
+        out[0] = cell / width;
+        out[1] = cell % width;
+        out[2] = vertical ? out[0] + 1 : out[0];
+        out[3] = vertical ? out[1] : out[1] + 1;
+
+        lastDepth = depthDone;
+        lastNodes = nodes;
+        lastNanos = System.nanoTime() - start;
+        lastValue = bestValue;
+        return true;
+    }
+
+    /**
+     * 最近一次搜索完整完成的深度，0表示第一层也未完成
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * 最近一次搜索评估的局面数
+     */
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    public long getLastNanos() {
+        return lastNanos;
+    }
+
+    /**
+     * 最近一次选中交换的期望得分
+     */
+    public double getLastValue() {
+        return lastValue;
+    }
+
+    /**
+     * 清空置换表，例如规则或计分改变后
+     */
+    public synchronized void clearTable() {
+        table.clear();
+    }
+
+    /**
+     * 并行执行所有根节点任务
+     */
+    private static class RootSearch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RootTask[] tasks;
+
+        RootSearch(RootTask[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * 评估根节点的一个交换，每个任务有自己的棋盘栈
+     */
+    private class RootTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SearchBoard root;
+        private final long rootHash;
+        private final int move;
+        private final int depth;
+        double value;
+        long nodes;
+
+        RootTask(SearchBoard root, long rootHash, int move, int depth) {
+            this.root = root;
+            this.rootHash = rootHash;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            Context context = new Context(root.width, root.height, depth);
+            value = context.expect(root, rootHash, move, 0, depth);
+            nodes = context.nodes;
+        }
+    }
+
+    /**
+     * 单个线程的搜索状态：每层一个棋盘和交换列表
+     */
+    private final class Context {
+        private final SearchBoard[] boards;
+        private final int[][] moves;
+        private final FastRandom random = new FastRandom(0);
+        long nodes = 0;
+
+        Context(int width, int height, int depth) {
+            boards = new SearchBoard[depth + 2];
+            moves = new int[depth + 2][];
+            for (int ply = 1; ply < boards.length; ply++) {
+                boards[ply] = new SearchBoard(width, height);
+                moves[ply] = new int[width * height * 2];
+            }
+        }
+
+        /**
+         * 在board上执行move的期望得分，包括之后depth - 1步的最优期望
+         */
+        double expect(SearchBoard board, long hash, int move, int ply, int depth) {
+            SearchBoard child = boards[ply + 1];
+            double sum = 0;
+            for (int sample = 0; sample < samples; sample++) {
+                child.copyFrom(board);
+                random.setSeed(hash ^ (move * MOVE_MIX) ^ (sample * SAMPLE_MIX));
+                sum += child.play(move, random);
+                if ((++nodes & (DEADLINE_CHECK_INTERVAL - 1)) == 0 && System.nanoTime() > deadline) {
+                    aborted = true;
+                }
+                if (depth > 1) {
+                    sum += best(child, ply + 1, depth - 1);
+                }
+                if (aborted) return 0;
+            }
+            return sum / samples;
+        }
+
+        /**
+         * 局面在之后depth步内的最优期望得分
+         */
+        private double best(SearchBoard board, int ply, int depth) {
+            long hash = board.hash();
+            long key = hash ^ DEPTH_KEYS[depth];
+            double cached = table.probe(key);
+            if (!Double.isNaN(cached)) return cached;
+
+            int[] list = moves[ply];
+            int count = board.listMoves(list);
+            double best = 0;
+            for (int i = 0; i < count; i++) {
+                double value = expect(board, hash, list[i], ply, depth);
+                if (aborted) return 0;
+                if (value > best) best = value;
+            }
+            table.store(key, best);
+            return best;
+        }
+    }
+}
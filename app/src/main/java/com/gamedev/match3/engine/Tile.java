@@ -2,6 +2,7 @@ package com.gamedev.match3.engine;
 
 /**
  * 游戏瓷砖类 - 代表游戏板上的一个元素
+ * 引擎内部按类型数组存放棋盘，Tile只作为GameEngine.getTile返回的副本
  */
 public class Tile {
     public static final int TYPE_EMPTY = 0;
@@ -15,9 +16,6 @@ public class Tile {
     public int type;
     public int row;
     public int col;
-    public boolean isMarked = false;
-    public float targetX = 0;
-    public float targetY = 0;
 
     public Tile(int type, int row, int col) {
         this.type = type;
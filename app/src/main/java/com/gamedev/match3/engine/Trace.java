@@ -0,0 +1,155 @@
+package com.gamedev.match3.engine;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 轻量追踪 - 在预分配的环形缓冲区中记录耗时区间，导出为Chrome trace-event JSON，
+ * 可以用Perfetto或chrome://tracing打开，查看真实对局中每帧的时间线
+ *
+ * 用法：
+ * <pre>
+ * long span = Trace.begin();
+ * ...
+ * Trace.end("GameEngine.findMatches", span);
+ * </pre>
+ * 关闭时begin和end各只有一次判断；名字须为字符串常量，记录时不产生分配。
+ * 缓冲区写满后覆盖最早的区间。多个线程可以同时记录，每个区间占用一次原子自增。
+ */
+public final class Trace {
+    // 当前记录用的缓冲区，关闭时为空；字段均为final，其他线程读到引用即可安全使用
+    private static Ring ring;
+    // 最近一次的缓冲区，关闭后仍可导出
+    private static Ring lastRing;
+
+    private Trace() {
+    }
+
+    /**
+     * 开始记录，之前的数据被丢弃
+     *
+     * @param capacity 保留的区间数，向上取2的幂
+     */
+    public static synchronized void start(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        lastRing = new Ring(Math.max(Integer.highestOneBit(capacity - 1) << 1, 1));
+        ring = lastRing;
+    }
+
+    /**
+     * 停止记录，已记录的数据保留到下一次start
+     */
+    public static synchronized void stop() {
+        ring = null;
+    }
+
+    public static boolean isEnabled() {
+        return ring != null;
+    }
+
+    /**
+     * 区间开始，返回开始时间；关闭时返回0
+     */
+    public static long begin() {
+        return ring != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * 区间结束
+     *
+     * @param name  区间名，须为字符串常量
+     * @param start begin的返回值
+     */
+    public static void end(String name, long start) {
+        // 关闭时start为0，只有这一次判断
+        if (start == 0) return;
+        Ring current = ring;
+        if (current != null) {
+            current.add(name, start, System.nanoTime());
+        }
+    }
+
+    /**
+     * 导出最近一次记录的区间，按开始记录的先后顺序输出
+     * 记录仍在进行时导出，正在写入的少数区间可能不完整
+     */
+    public static void writeJson(Writer out) throws IOException {
+        Ring data;
+        synchronized (Trace.class) {
+            data = lastRing;
+        }
+        out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        if (data != null) {
+            data.writeEvents(out);
+        }
+        out.write("]}\n");
+        out.flush();
+    }
+
+    private static final class Ring {
+        private final int mask;
+        private final String[] names;
+        private final long[] starts;
+        private final long[] durations;
+        private final long[] threadIds;
+        private final String[] threadNames;
+        private final AtomicLong cursor = new AtomicLong();
+        // 时间戳以开始记录的时刻为零点
+        private final long origin = System.nanoTime();
+
+        Ring(int capacity) {
+            this.mask = capacity - 1;
+            this.names = new String[capacity];
+            this.starts = new long[capacity];
+            this.durations = new long[capacity];
+            this.threadIds = new long[capacity];
+            this.threadNames = new String[capacity];
+        }
+
+        void add(String name, long start, long end) {
+            int index = (int) cursor.getAndIncrement() & mask;
+            Thread thread = Thread.currentThread();
+            names[index] = name;
+            starts[index] = start;
+            durations[index] = end - start;
+            threadIds[index] = thread.getId();
+            threadNames[index] = thread.getName();
+        }
+
+        void writeEvents(Writer out) throws IOException {
+            long end = cursor.get();
+            long begin = Math.max(0, end - (mask + 1));
+            Set<Long> threads = new HashSet<>();
+            boolean first = true;
+            for (long i = begin; i < end; i++) {
+                int index = (int) i & mask;
+                if (names[index] == null) continue;
+                if (threads.add(threadIds[index])) {
+                    // 线程名元数据，时间线按线程分行显示
+                    out.write(first ? "\n" : ",\n");
+                    first = false;
+                    out.write(String.format(Locale.ROOT,
+                            "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%d,\"args\":{\"name\":\"%s\"}}",
+                            threadIds[index], escape(threadNames[index])));
+                }
+                out.write(first ? "\n" : ",\n");
+                first = false;
+                out.write(String.format(Locale.ROOT,
+                        "{\"name\":\"%s\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%.3f,\"dur\":%.3f}",
+                        escape(names[index]), threadIds[index],
+                        (starts[index] - origin) / 1000.0, durations[index] / 1000.0));
+            }
+            out.write("\n");
+        }
+
+        private static String escape(String text) {
+            return text.replace("\\", "\\\\").replace("\"", "\\\"");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.gamedev.match3.engine;
+
+import java.util.Arrays;
+
+/**
+ * 无锁置换表 - 多个搜索线程共享，保存局面的期望得分
+ *
+ * 每项两个long：keys[i]存放key ^ data，data[i]存放数据。
+ * 两次写入交错时key ^ data对不上，读到的撕裂项会被当作未命中，无需加锁。
+ */
+final class TranspositionTable {
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * @param bits 表项数为2^bits
+     */
+    TranspositionTable(int bits) {
+        int size = 1 << bits;
+        this.keys = new long[size];
+        this.data = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 查找key对应的值，未命中时返回NaN
+     */
+    double probe(long key) {
+        int index = (int) (key ^ (key >>> 32)) & mask;
+        long value = data[index];
+        if ((keys[index] ^ value) != key) {
+            return Double.NaN;
+        }
+        return Double.longBitsToDouble(value);
+    }
+
+    /**
+     * 写入，总是覆盖原有项
+     */
+    void store(long key, double value) {
+        int index = (int) (key ^ (key >>> 32)) & mask;
+        long bits = Double.doubleToRawLongBits(value);
+        data[index] = bits;
+        keys[index] = key ^ bits;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+}
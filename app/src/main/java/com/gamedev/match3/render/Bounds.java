@@ -0,0 +1,57 @@
+package com.gamedev.match3.render;
+
+/**
+ * 整数矩形 - 与android.graphics.Rect相同的约定（左上闭、右下开），用于计算重绘区域
+ */
+public final class Bounds {
+    public int left;
+    public int top;
+    public int right;
+    public int bottom;
+
+    public void set(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public void set(Bounds other) {
+        set(other.left, other.top, other.right, other.bottom);
+    }
+
+    public void setEmpty() {
+        set(0, 0, 0, 0);
+    }
+
+    public boolean isEmpty() {
+        return left >= right || top >= bottom;
+    }
+
+    public int width() {
+        return right - left;
+    }
+
+    public int height() {
+        return bottom - top;
+    }
+
+    /**
+     * 扩大到包含指定矩形，空矩形不影响结果
+     */
+    public void union(int left, int top, int right, int bottom) {
+        if (left >= right || top >= bottom) return;
+        if (isEmpty()) {
+            set(left, top, right, bottom);
+            return;
+        }
+        this.left = Math.min(this.left, left);
+        this.top = Math.min(this.top, top);
+        this.right = Math.max(this.right, right);
+        this.bottom = Math.max(this.bottom, bottom);
+    }
+
+    public void union(Bounds other) {
+        union(other.left, other.top, other.right, other.bottom);
+    }
+}
@@ -0,0 +1,442 @@
+package com.gamedev.match3.render;
+
+import com.gamedev.match3.effect.AnimationManager;
+import com.gamedev.match3.effect.FloatingText;
+import com.gamedev.match3.effect.FloatingTextSystem;
+import com.gamedev.match3.effect.ParticleBatcher;
+import com.gamedev.match3.effect.ParticleSystem;
+import com.gamedev.match3.effect.TileAnimation;
+import com.gamedev.match3.engine.BoardFrame;
+import com.gamedev.match3.engine.FrameClock;
+import com.gamedev.match3.engine.HudFormatter;
+import com.gamedev.match3.engine.InputLatencyTracker;
+import com.gamedev.match3.engine.OptimizedGameEngine;
+import com.gamedev.match3.engine.PerformanceMonitor;
+import com.gamedev.match3.engine.Tile;
+import com.gamedev.match3.engine.Trace;
+
+import java.util.Arrays;
+
+/**
+ * 帧路径 - 与平台无关的每帧绘制逻辑：HUD文字、重绘区域、静态层格子比较、瓷砖和特效的绘制顺序
+ *
+ * 每帧先调用prepare计算重绘区域，有需要重画的区域时再调用render，绘制命令交给RenderTarget。
+ * GameView和FrameBudgetCheck使用同一个实例类型，桌面检查的就是真机上的帧路径。
+ * 除isGameOverShown和invalidate外只能在绘制线程使用；每帧不产生分配。
+ */
+public final class FrameRenderer {
+    // HUD文字行，文字变化时才重画所在区域
+    private static final int HUD_SCORE = 0;
+    private static final int HUD_LEVEL = 1;
+    private static final int HUD_PHASES = 2;
+    private static final int HUD_FRAME = 3;
+    private static final int HUD_INPUT = 4;
+    private static final int HUD_PERFORMANCE = 5;
+    private static final int HUD_COUNTS = 6;
+    private static final int HUD_LINES = 7;
+    // 底部统计文字所占的高度
+    private static final int HUD_BOTTOM_HEIGHT = 140;
+    // 性能统计文字每隔这么多帧刷新一次，期间不变的HUD不需要重画
+    private static final int HUD_REFRESH_FRAMES = 30;
+
+    private static final int TEXT_COLOR = 0xFF000000;
+    private static final int STATS_COLOR = 0xFF666666;
+    private static final int OVERLAY_COLOR = 0x80000000;
+    private static final int GAME_OVER_COLOR = 0xFFFFFFFF;
+
+    // 静态层中需要重画的格子
+    private static final int CELL_INVALID = -2;
+
+    private final OptimizedGameEngine engine;
+    private final PerformanceMonitor monitor;
+    private final FrameClock frameClock;
+    private final InputLatencyTracker inputLatency;
+    private final ParticleSystem particleSystem;
+    private final AnimationManager animationManager;
+    private final FloatingTextSystem floatingTextSystem;
+    private final ParticleBatcher particleBatcher;
+
+    // 屏幕和棋盘布局
+    private int screenWidth = 0;
+    private int screenHeight = 0;
+    private int tileSize = 0;
+    private int boardStartX = 0;
+    private int boardStartY = 0;
+
+    // 本帧需要重画的区域，动态元素本帧和上一帧的范围
+    private final Bounds dirty = new Bounds();
+    private final Bounds dynamicBounds = new Bounds();
+    private final Bounds lastDynamicBounds = new Bounds();
+    // 新的绘制表面或上一帧没有提交时整屏重画
+    private volatile boolean fullRepaint = true;
+    // 静态层每格上次画入的内容，行优先
+    private int[] layerCells = new int[0];
+    // 已显示的选中框和结束画面状态；UI线程据后者判断点击是否为重新开始
+    private int drawnSelectedRow = -1;
+    private int drawnSelectedCol = -1;
+    private volatile boolean drawnGameOver = false;
+    // 重绘面积占全屏的百分比，按帧累计，没有提交的帧计0
+    private long repaintSum = 0;
+    private int repaintFrames = 0;
+
+    // HUD文字缓冲（复用以避免每帧拼接字符串）
+    private final HudFormatter[] hudLines = new HudFormatter[HUD_LINES];
+    private final HudFormatter[] drawnHudLines = new HudFormatter[HUD_LINES];
+    private final HudFormatter gameOverText = new HudFormatter().append("Game Over!");
+    private final HudFormatter restartText = new HudFormatter().append("Tap to play again");
+    private final HudFormatter finalScoreText = new HudFormatter();
+    private int hudRefreshCountdown = 0;
+
+    public FrameRenderer(OptimizedGameEngine engine, FrameClock frameClock, InputLatencyTracker inputLatency,
+            ParticleSystem particleSystem, AnimationManager animationManager, FloatingTextSystem floatingTextSystem) {
+        this.engine = engine;
+        this.monitor = engine.getPerformanceMonitor();
+        this.frameClock = frameClock;
+        this.inputLatency = inputLatency;
+        this.particleSystem = particleSystem;
+        this.animationManager = animationManager;
+        this.floatingTextSystem = floatingTextSystem;
+        this.particleBatcher = new ParticleBatcher(particleSystem.getCapacity());
+        for (int i = 0; i < HUD_LINES; i++) {
+            hudLines[i] = new HudFormatter();
+            drawnHudLines[i] = new HudFormatter();
+        }
+    }
+
+    /**
+     * 设置屏幕大小和棋盘位置，每帧prepare之前调用；瓷砖大小变化时静态层在prepare中重新生成
+     */
+    public void setLayout(int screenWidth, int screenHeight, int tileSize, int boardStartX, int boardStartY) {
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        this.tileSize = tileSize;
+        this.boardStartX = boardStartX;
+        this.boardStartY = boardStartY;
+    }
+
+    /**
+     * 下一帧整屏重画，例如绘制表面重建或上一帧没有提交；可在任意线程调用
+     */
+    public void invalidate() {
+        fullRepaint = true;
+    }
+
+    /**
+     * 当前显示的是否为结束画面，可在任意线程调用
+     */
+    public boolean isGameOverShown() {
+        return drawnGameOver;
+    }
+
+    /**
+     * 本帧需要重画的区域，prepare返回true后有效
+     */
+    public Bounds getDirty() {
+        return dirty;
+    }
+
+    public int getParticleBatchCount() {
+        return particleBatcher.getBatchCount();
+    }
+
+    /**
+     * 更新静态层，计算本帧需要重画的区域：内容变化的格子、本帧和上一帧动态元素
+     * （动画、粒子、浮动文字）所在的范围、选中框的变化和文字变化的HUD区域
+     *
+     * @param lead 上一步模拟之后经过的时间（秒），粒子按速度外推这段时间后绘制
+     * @return 有需要重画的区域
+     */
+    public boolean prepare(BoardFrame frame, float lead, int selectedRow, int selectedCol, RenderTarget target) {
+        long span = Trace.begin();
+        dirty.setEmpty();
+        if (fullRepaint) {
+            // 新的绘制表面或上一帧没有提交，内容未知
+            dirty.set(0, 0, screenWidth, screenHeight);
+            fullRepaint = false;
+        }
+
+        updateBoardLayer(frame, target);
+
+        // 动态元素：本帧的范围，和上一帧的范围一起重画，擦掉旧的位置
+        dynamicBounds.setEmpty();
+        for (int i = 0; i < animationManager.getAnimationCount(); i++) {
+            TileAnimation anim = animationManager.getAnimation(i);
+            // 在动画位置绘制的瓷砖
+            dynamicBounds.union((int) anim.currentX, (int) anim.currentY,
+                    (int) anim.currentX + tileSize, (int) anim.currentY + tileSize);
+            if (anim.animationType == 1) {
+                int radius = (int) Math.ceil((tileSize / 2) * anim.scale) + 1;
+                dynamicBounds.union((int) anim.currentX - radius, (int) anim.currentY - radius,
+                        (int) anim.currentX + radius, (int) anim.currentY + radius);
+            }
+        }
+        if (particleBatcher.build(particleSystem, boardStartX, boardStartY, lead) > 0) {
+            dynamicBounds.union((int) Math.floor(particleBatcher.getBoundsLeft()),
+                    (int) Math.floor(particleBatcher.getBoundsTop()),
+                    (int) Math.ceil(particleBatcher.getBoundsRight()),
+                    (int) Math.ceil(particleBatcher.getBoundsBottom()));
+        }
+        for (int i = 0; i < floatingTextSystem.getTextCount(); i++) {
+            FloatingText text = floatingTextSystem.getText(i);
+            target.unionTextBounds(text.text, text.x, text.y, FloatingTextSystem.TEXT_SIZE, dynamicBounds);
+        }
+        dirty.union(dynamicBounds);
+        dirty.union(lastDynamicBounds);
+        lastDynamicBounds.set(dynamicBounds);
+
+        // 选中框变化
+        if (selectedRow != drawnSelectedRow || selectedCol != drawnSelectedCol) {
+            unionCell(drawnSelectedRow, drawnSelectedCol);
+            unionCell(selectedRow, selectedCol);
+            drawnSelectedRow = selectedRow;
+            drawnSelectedCol = selectedCol;
+        }
+
+        // HUD文字变化
+        formatHud(frame);
+        if (updateHudLines(HUD_SCORE, HUD_LEVEL)) {
+            dirty.union(0, 0, screenWidth, boardStartY);
+        }
+        if (updateHudLines(HUD_PHASES, HUD_COUNTS)) {
+            dirty.union(0, screenHeight - HUD_BOTTOM_HEIGHT, screenWidth, screenHeight);
+        }
+
+        // 结束画面的遮罩覆盖全屏
+        boolean gameOver = !frame.isGameRunning();
+        if (gameOver != drawnGameOver) {
+            dirty.set(0, 0, screenWidth, screenHeight);
+            drawnGameOver = gameOver;
+        }
+
+        int area = screenWidth * screenHeight;
+        repaintSum += area > 0 && !dirty.isEmpty()
+                ? Math.min(100, (long) dirty.width() * dirty.height() * 100 / area) : 0;
+        repaintFrames++;
+        Trace.end("FrameRenderer.prepare", span);
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * 按顺序绘制一帧：背景、棋盘、瓷砖动画、粒子、浮动文字、HUD；
+     * 重绘区域内全部重画，区域外保留上一帧的内容
+     */
+    public void render(BoardFrame frame, RenderTarget target) {
+        target.clear();
+        drawBoard(frame, target);
+        drawTileAnimations(frame, target);
+        drawParticles(target);
+        drawFloatingTexts(target);
+        drawUI(frame, target);
+    }
+
+    /**
+     * 重画静态层中内容变化的格子；有动画的瓷砖不画入静态层
+     */
+    private void updateBoardLayer(BoardFrame frame, RenderTarget target) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        if (layerCells.length != width * height) {
+            layerCells = new int[width * height];
+            Arrays.fill(layerCells, CELL_INVALID);
+        }
+        if (target.prepareBoardLayer(width, height, tileSize)) {
+            Arrays.fill(layerCells, CELL_INVALID);
+        }
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int index = row * width + col;
+                int content = animationManager.hasAnimation(row, col)
+                        ? RenderTarget.CELL_ANIMATED : frame.getType(row, col);
+                if (layerCells[index] == content) continue;
+                layerCells[index] = content;
+                target.drawLayerCell(row, col, content);
+                int x = boardStartX + col * tileSize;
+                int y = boardStartY + row * tileSize;
+                dirty.union(x, y, x + tileSize, y + tileSize);
+            }
+        }
+    }
+
+    /**
+     * 把格子（含选中框线宽）并入重绘区域
+     */
+    private void unionCell(int row, int col) {
+        if (row < 0 || col < 0) return;
+        int x = boardStartX + col * tileSize;
+        int y = boardStartY + row * tileSize;
+        dirty.union(x - 1, y - 1, x + tileSize + 1, y + tileSize + 1);
+    }
+
+    /**
+     * 写入本帧的HUD文字；性能统计每HUD_REFRESH_FRAMES帧刷新一次
+     */
+    private void formatHud(BoardFrame frame) {
+        hudLines[HUD_SCORE].clear().append("Score: ").append(frame.getScore());
+        hudLines[HUD_LEVEL].clear().append("Level: ").append(frame.getLevel());
+
+        if (--hudRefreshCountdown <= 0) {
+            hudRefreshCountdown = HUD_REFRESH_FRAMES;
+            engine.formatPhaseStats(hudLines[HUD_PHASES].clear());
+            hudLines[HUD_FRAME].clear()
+                    .append("Frame: ").append(frameClock.getTargetRate())
+                    .append("Hz | jitter avg ").append(frameClock.getJitterMillis(), 2)
+                    .append("ms | max ").append(frameClock.getMaxJitterMillis(), 2)
+                    .append("ms | repaint avg ").append(repaintFrames == 0 ? 0 : repaintSum / repaintFrames)
+                    .append('%');
+            repaintSum = 0;
+            repaintFrames = 0;
+            hudLines[HUD_INPUT].clear();
+            if (inputLatency.getSampleCount() > 0) {
+                inputLatency.formatSummary(hudLines[HUD_INPUT]);
+            }
+            engine.formatPerformanceStats(hudLines[HUD_PERFORMANCE].clear());
+        }
+
+        hudLines[HUD_COUNTS].clear()
+                .append("Particles: ").append(particleSystem.getParticleCount())
+                .append(" (").append(particleBatcher.getBatchCount()).append(" draws)")
+                .append(" | Animations: ").append(animationManager.getAnimationCount());
+    }
+
+    /**
+     * 把first到last行中变化的文字记为已绘制
+     *
+     * @return 有变化的行
+     */
+    private boolean updateHudLines(int first, int last) {
+        boolean changed = false;
+        for (int i = first; i <= last; i++) {
+            if (!drawnHudLines[i].contentEquals(hudLines[i])) {
+                drawnHudLines[i].set(hudLines[i]);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 绘制游戏板：静态层，有动画的瓷砖和选中框
+     */
+    private void drawBoard(BoardFrame frame, RenderTarget target) {
+        long span = Trace.begin();
+        int height = frame.getHeight();
+        int width = frame.getWidth();
+
+        target.drawBoardLayer(boardStartX, boardStartY);
+
+        // 有动画的瓷砖不在静态层中，在动画位置绘制
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if (animationManager.hasAnimation(row, col)) {
+                    drawTile(row, col, frame.getType(row, col), target);
+                }
+            }
+        }
+
+        // 绘制选中框
+        if (drawnSelectedRow >= 0 && drawnSelectedCol >= 0) {
+            int x = boardStartX + drawnSelectedCol * tileSize;
+            int y = boardStartY + drawnSelectedRow * tileSize;
+            target.drawBorder(x, y, x + tileSize, y + tileSize);
+        }
+        Trace.end("FrameRenderer.drawBoard", span);
+    }
+
+    /**
+     * 绘制单个瓷砖，有动画时使用动画位置
+     */
+    private void drawTile(int row, int col, int type, RenderTarget target) {
+        int x = boardStartX + col * tileSize;
+        int y = boardStartY + row * tileSize;
+
+        if (type == Tile.TYPE_EMPTY) {
+            // 绘制空瓷砖边框
+            target.drawBorder(x, y, x + tileSize, y + tileSize);
+            return;
+        }
+
+        TileAnimation anim = animationManager.getCellAnimation(row, col);
+        if (anim != null) {
+            x = (int) anim.currentX;
+            y = (int) anim.currentY;
+        }
+        target.drawTile(type, x, y);
+    }
+
+    /**
+     * 绘制消除动画
+     */
+    private void drawTileAnimations(BoardFrame frame, RenderTarget target) {
+        long span = Trace.begin();
+        for (int i = 0; i < animationManager.getAnimationCount(); i++) {
+            TileAnimation anim = animationManager.getAnimation(i);
+            if (anim.animationType == 1) { // 消除动画
+                target.drawDismiss(frame.getType(anim.tileRow, anim.tileCol), anim.currentX, anim.currentY,
+                        (tileSize / 2) * anim.scale, anim.rotation, anim.alpha);
+            }
+        }
+        Trace.end("FrameRenderer.drawTileAnimations", span);
+    }
+
+    /**
+     * 绘制粒子：批次已在prepare中生成；同一颜色、透明度和大小的粒子一次绘制，调用数不随粒子数增长
+     */
+    private void drawParticles(RenderTarget target) {
+        long span = Trace.begin();
+        int batches = particleBatcher.getBatchCount();
+        float[] points = particleBatcher.getPoints();
+        for (int b = 0; b < batches; b++) {
+            target.drawPoints(points, particleBatcher.getBatchOffset(b), particleBatcher.getBatchLength(b),
+                    particleBatcher.getBatchWidth(b), particleBatcher.getBatchColor(b));
+        }
+        monitor.recordParticleDrawCalls(batches);
+        Trace.end("FrameRenderer.drawParticles", span);
+    }
+
+    /**
+     * 绘制浮动分数，透明度并入颜色
+     */
+    private void drawFloatingTexts(RenderTarget target) {
+        for (int i = 0; i < floatingTextSystem.getTextCount(); i++) {
+            FloatingText text = floatingTextSystem.getText(i);
+            int color = ((int) (text.alpha * 255) << 24) | (text.color & 0x00FFFFFF);
+            target.drawText(text.text, text.x, text.y, FloatingTextSystem.TEXT_SIZE, color);
+        }
+    }
+
+    /**
+     * 绘制分数、关卡、各阶段耗时、帧节拍、输入延迟、性能信息和活跃对象统计
+     */
+    private void drawUI(BoardFrame frame, RenderTarget target) {
+        long span = Trace.begin();
+        target.drawText(hudLines[HUD_SCORE], 20, 50, 32, TEXT_COLOR);
+        target.drawText(hudLines[HUD_LEVEL], 20, 100, 32, TEXT_COLOR);
+
+        target.drawText(hudLines[HUD_PHASES], 20, screenHeight - 115, 16, STATS_COLOR);
+        target.drawText(hudLines[HUD_FRAME], 20, screenHeight - 90, 16, STATS_COLOR);
+        target.drawText(hudLines[HUD_INPUT], 20, screenHeight - 65, 16, STATS_COLOR);
+        target.drawText(hudLines[HUD_PERFORMANCE], 20, screenHeight - 40, 16, STATS_COLOR);
+        target.drawText(hudLines[HUD_COUNTS], 20, screenHeight - 15, 14, STATS_COLOR);
+
+        if (!frame.isGameRunning()) {
+            drawGameOver(frame, target);
+        }
+        Trace.end("FrameRenderer.drawUI", span);
+    }
+
+    /**
+     * 绘制游戏结束界面：半透明遮罩、最终分数和重新开始提示
+     */
+    private void drawGameOver(BoardFrame frame, RenderTarget target) {
+        target.fillRect(0, 0, screenWidth, screenHeight, OVERLAY_COLOR);
+        drawCentered(gameOverText, screenHeight / 2 - 50, 48, target);
+        finalScoreText.clear().append("Score: ").append(frame.getScore());
+        drawCentered(finalScoreText, screenHeight / 2 + 50, 32, target);
+        drawCentered(restartText, screenHeight / 2 + 110, 24, target);
+    }
+
+    private void drawCentered(HudFormatter text, float y, float size, RenderTarget target) {
+        float x = (screenWidth - target.measureText(text, size)) / 2;
+        target.drawText(text, x, y, size, GAME_OVER_COLOR);
+    }
+}
@@ -0,0 +1,179 @@
+package com.gamedev.match3.render;
+
+import com.gamedev.match3.effect.AnimationManager;
+import com.gamedev.match3.effect.FloatingTextSystem;
+import com.gamedev.match3.effect.ParticleSystem;
+import com.gamedev.match3.engine.CellSet;
+import com.gamedev.match3.engine.FrameClock;
+import com.gamedev.match3.engine.InputLatencyTracker;
+import com.gamedev.match3.engine.InputQueue;
+import com.gamedev.match3.engine.OptimizedGameEngine;
+import com.gamedev.match3.engine.PerformanceMonitor;
+import com.gamedev.match3.engine.PerformanceMonitor.Phase;
+
+/**
+ * 帧更新 - 与平台无关的每帧更新逻辑：执行输入命令，按固定步长推进特效，
+ * 为消除的格子创建动画、粒子和浮动分数，再按时间预算推进链式反应
+ *
+ * 与FrameRenderer一起构成GameView和FrameBudgetCheck共用的帧路径；音效等平台相关的反馈通过Listener通知。
+ * 只能在游戏循环线程使用；每帧不产生分配。
+ */
+public final class FrameUpdater implements InputQueue.Handler {
+    // 每个消除的格子显示的分数
+    private static final int CLEAR_SCORE = 50;
+    private static final int EXPLOSION_PARTICLES = 12;
+    // 每帧用于推进链式反应的时间占帧周期的比例，超出的步骤顺延到下一帧
+    private static final int CASCADE_BUDGET_DIVISOR = 4;
+
+    /**
+     * 平台相关的反馈，在游戏循环线程调用
+     */
+    public interface Listener {
+        /** 交换成功 */
+        void onSwapApplied();
+
+        /** 本帧有格子被消除 */
+        void onMatchesCleared();
+    }
+
+    private final OptimizedGameEngine engine;
+    private final PerformanceMonitor monitor;
+    private final InputQueue inputQueue;
+    private final InputLatencyTracker inputLatency;
+    private final FrameClock frameClock;
+    private final ParticleSystem particleSystem;
+    private final AnimationManager animationManager;
+    private final FloatingTextSystem floatingTextSystem;
+    private final int[] tileColors;
+    private final Listener listener;
+
+    // 棋盘布局
+    private int tileSize = 0;
+    private int boardStartX = 0;
+    private int boardStartY = 0;
+    // 本次更新的时间，作为命令的执行时间
+    private long nowNanos = 0;
+
+    public FrameUpdater(OptimizedGameEngine engine, InputQueue inputQueue, InputLatencyTracker inputLatency,
+            FrameClock frameClock, ParticleSystem particleSystem, AnimationManager animationManager,
+            FloatingTextSystem floatingTextSystem, int[] tileColors, Listener listener) {
+        this.engine = engine;
+        this.monitor = engine.getPerformanceMonitor();
+        this.inputQueue = inputQueue;
+        this.inputLatency = inputLatency;
+        this.frameClock = frameClock;
+        this.particleSystem = particleSystem;
+        this.animationManager = animationManager;
+        this.floatingTextSystem = floatingTextSystem;
+        this.tileColors = tileColors;
+        this.listener = listener;
+    }
+
+    /**
+     * 设置棋盘位置和瓷砖大小，每帧update之前调用
+     */
+    public void setLayout(int tileSize, int boardStartX, int boardStartY) {
+        this.tileSize = tileSize;
+        this.boardStartX = boardStartX;
+        this.boardStartY = boardStartY;
+    }
+
+    /**
+     * 更新游戏状态
+     *
+     * @param steps 本帧模拟的固定步数
+     * @param nowNanos 当前时间，记为本帧执行命令的时间
+     */
+    public void update(int steps, float stepSeconds, long nowNanos) {
+        this.nowNanos = nowNanos;
+
+        // 执行触摸提交的命令；对局结束后只有重新开始的命令生效
+        // 每帧最多执行一个命令，链式反应进行中不取出，其余命令等棋盘稳定后按顺序执行
+        monitor.beginPhase(Phase.INPUT);
+        if (!engine.isCascading()) {
+            inputQueue.drain(this, 1);
+        }
+        monitor.endPhase(Phase.INPUT);
+
+        if (!engine.isGameRunning()) return;
+
+        // 按固定步长更新所有特效系统
+        monitor.beginPhase(Phase.PARTICLES);
+        for (int i = 0; i < steps; i++) {
+            particleSystem.update(stepSeconds);
+        }
+        monitor.endPhase(Phase.PARTICLES);
+
+        monitor.beginPhase(Phase.ANIMATIONS);
+        for (int i = 0; i < steps; i++) {
+            animationManager.update(stepSeconds);
+            floatingTextSystem.update(stepSeconds);
+        }
+        monitor.endPhase(Phase.ANIMATIONS);
+
+        // 执行游戏逻辑
+        monitor.beginPhase(Phase.ENGINE);
+        CellSet matches = engine.findMatches();
+        if (!matches.isEmpty()) {
+            // 添加消除动画、爆炸粒子和浮动分数
+            for (int i = 0; i < matches.size(); i++) {
+                int row = matches.getRow(i);
+                int col = matches.getCol(i);
+                float x = boardStartX + col * tileSize + tileSize / 2;
+                float y = boardStartY + row * tileSize + tileSize / 2;
+                animationManager.addDismissAnimation(row, col, x, y);
+                particleSystem.createExplosion(x, y, tileColors[engine.getType(row, col)], EXPLOSION_PARTICLES);
+                floatingTextSystem.addScore(x, y, CLEAR_SCORE);
+            }
+            listener.onMatchesCleared();
+        }
+
+        engine.update(1_000_000_000L / frameClock.getTargetRate() / CASCADE_BUDGET_DIVISOR);
+        monitor.endPhase(Phase.ENGINE);
+    }
+
+    /**
+     * 在游戏线程执行触摸提交的命令
+     */
+    @Override
+    public void onCommand(int command, int row1, int col1, int row2, int col2, long enqueueNanos) {
+        if (command == InputQueue.COMMAND_SWAP) {
+            if (engine.isGameRunning()) {
+                applySwap(row1, col1, row2, col2, enqueueNanos);
+            }
+        } else if (command == InputQueue.COMMAND_RESTART) {
+            restartGame();
+        }
+    }
+
+    /**
+     * 对局结束后开始新的一局，清除上一局的特效；新局从种子开局，重新开始记录对局
+     */
+    private void restartGame() {
+        if (engine.isGameRunning()) return;
+        engine.reset();
+        animationManager.clear();
+        particleSystem.clear();
+        floatingTextSystem.clear();
+    }
+
+    /**
+     * 执行交换并创建特效，记录交换结果所在的棋盘帧用于统计延迟
+     */
+    private void applySwap(int row1, int col1, int row2, int col2, long enqueueNanos) {
+        if (!engine.swapTiles(row1, col1, row2, col2)) return;
+        inputLatency.onApplied(enqueueNanos, nowNanos, engine.getFrameSequence());
+        listener.onSwapApplied();
+
+        // 创建瓷砖移动动画
+        float startX = boardStartX + col1 * tileSize + tileSize / 2;
+        float startY = boardStartY + row1 * tileSize + tileSize / 2;
+        float targetX = boardStartX + col2 * tileSize + tileSize / 2;
+        float targetY = boardStartY + row2 * tileSize + tileSize / 2;
+        animationManager.addMoveAnimation(row1, col1, startX, startY, targetX, targetY);
+        animationManager.addMoveAnimation(row2, col2, targetX, targetY, startX, startY);
+
+        // 创建击中特效
+        particleSystem.createHitEffect(startX, startY, tileColors[engine.getType(row1, col1)]);
+    }
+}
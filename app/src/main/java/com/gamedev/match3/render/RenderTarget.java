@@ -0,0 +1,69 @@
+package com.gamedev.match3.render;
+
+import com.gamedev.match3.engine.HudFormatter;
+
+/**
+ * 绘制目标 - FrameRenderer按帧路径的顺序调用，由具体平台实现
+ *
+ * GameView用Canvas实现；FrameBudgetCheck只记录调用，在桌面上检查同一条帧路径。
+ * 坐标均为屏幕像素，只在绘制线程调用。
+ */
+public interface RenderTarget {
+    /** 静态层中有动画的格子：只画底色，瓷砖在动画位置另画 */
+    int CELL_ANIMATED = -1;
+
+    /**
+     * 确保棋盘静态层与棋盘和瓷砖大小一致
+     *
+     * @return 静态层被重新创建时返回true，所有格子需要重画
+     */
+    boolean prepareBoardLayer(int boardWidth, int boardHeight, int tileSize);
+
+    /**
+     * 重画静态层中的一格
+     *
+     * @param content 瓷砖类型，或CELL_ANIMATED
+     */
+    void drawLayerCell(int row, int col, int content);
+
+    /**
+     * 把静态层画到(x, y)
+     */
+    void drawBoardLayer(int x, int y);
+
+    /**
+     * 用背景色覆盖本帧的重绘区域
+     */
+    void clear();
+
+    /**
+     * 在(x, y)处绘制指定类型的瓷砖
+     */
+    void drawTile(int type, float x, float y);
+
+    /**
+     * 绘制空瓷砖和选中框的边框
+     */
+    void drawBorder(float left, float top, float right, float bottom);
+
+    /**
+     * 绘制消除动画：按rotation旋转、半径为radius的圆
+     */
+    void drawDismiss(int type, float centerX, float centerY, float radius, float rotation, float alpha);
+
+    /**
+     * 绘制一批同色同大小的圆形粒子
+     */
+    void drawPoints(float[] points, int offset, int length, float width, int color);
+
+    void fillRect(float left, float top, float right, float bottom, int color);
+
+    void drawText(HudFormatter text, float x, float y, float size, int color);
+
+    float measureText(HudFormatter text, float size);
+
+    /**
+     * 把在(x, y)处以size绘制的文字的外接矩形并入bounds
+     */
+    void unionTextBounds(HudFormatter text, float x, float y, float size, Bounds bounds);
+}
@@ -0,0 +1,95 @@
+package com.gamedev.match3.view;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+
+import com.gamedev.match3.engine.Tile;
+import com.gamedev.match3.render.RenderTarget;
+
+/**
+ * 棋盘静态层 - 背景和静止的瓷砖预先画在一张与棋盘同大的Bitmap上，每帧只重画内容变化的格子
+ *
+ * 哪些格子需要重画由FrameRenderer比较棋盘帧后决定；有动画的瓷砖不画入静态层，
+ * 每帧在动画位置另画。只能在绘制线程使用。
+ */
+class BoardLayer {
+    private final int backgroundColor;
+    private final Paint borderPaint;
+    private final Rect cellRect = new Rect();
+
+    private Bitmap bitmap;
+    private Canvas canvas;
+    private int boardWidth = 0;
+    private int boardHeight = 0;
+    private int tileSize = 0;
+
+    BoardLayer(int backgroundColor, Paint borderPaint) {
+        this.backgroundColor = backgroundColor;
+        this.borderPaint = borderPaint;
+    }
+
+    /**
+     * 棋盘或瓷砖大小变化时重新创建
+     *
+     * @return 重新创建时返回true，所有格子需要重画
+     */
+    boolean ensure(int boardWidth, int boardHeight, int tileSize) {
+        if (bitmap != null && boardWidth == this.boardWidth && boardHeight == this.boardHeight
+                && tileSize == this.tileSize) {
+            return false;
+        }
+        release();
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.tileSize = tileSize;
+        if (tileSize > 0) {
+            bitmap = Bitmap.createBitmap(boardWidth * tileSize, boardHeight * tileSize, Bitmap.Config.ARGB_8888);
+            canvas = new Canvas(bitmap);
+        }
+        return true;
+    }
+
+    /**
+     * 重画一格
+     *
+     * @param content 瓷砖类型，或RenderTarget.CELL_ANIMATED（只画底色）
+     */
+    void drawCell(int row, int col, int content, TileSpriteCache sprites) {
+        if (canvas == null) return;
+        int x = col * tileSize;
+        int y = row * tileSize;
+        cellRect.set(x, y, x + tileSize, y + tileSize);
+
+        canvas.save();
+        canvas.clipRect(cellRect);
+        canvas.drawColor(backgroundColor, PorterDuff.Mode.SRC);
+        if (content == Tile.TYPE_EMPTY) {
+            // 空瓷砖边框，向内收1像素，线宽不会画到相邻格子
+            canvas.drawRect(x + 1, y + 1, x + tileSize - 1, y + tileSize - 1, borderPaint);
+        } else if (content != RenderTarget.CELL_ANIMATED) {
+            sprites.draw(canvas, content, x, y);
+        }
+        canvas.restore();
+    }
+
+    /**
+     * 把静态层画到(x, y)
+     */
+    void draw(Canvas target, int x, int y) {
+        if (bitmap != null) {
+            target.drawBitmap(bitmap, x, y, null);
+        }
+    }
+
+    void release() {
+        if (bitmap != null) {
+            bitmap.recycle();
+            bitmap = null;
+            canvas = null;
+        }
+        tileSize = 0;
+    }
+}
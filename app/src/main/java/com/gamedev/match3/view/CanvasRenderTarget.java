@@ -0,0 +1,161 @@
+package com.gamedev.match3.view;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.Typeface;
+
+import com.gamedev.match3.engine.HudFormatter;
+import com.gamedev.match3.render.Bounds;
+import com.gamedev.match3.render.RenderTarget;
+
+/**
+ * Canvas绘制目标 - 持有画笔、瓷砖贴图和棋盘静态层，把FrameRenderer的绘制命令画到锁定的画布上
+ *
+ * 只能在绘制线程使用。
+ */
+class CanvasRenderTarget implements RenderTarget {
+    private final int backgroundColor;
+    private final int[] tileColors;
+
+    // 画笔对象（复用以减少GC）
+    private final Paint textPaint;
+    private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
+    private final Paint borderPaint;
+    private final Paint particlePaint;
+    private final Paint dismissPaint;
+    private final Paint fillPaint;
+
+    // 各类型瓷砖的预绘制贴图
+    private final TileSpriteCache tileSprites;
+    // 背景和静止瓷砖的缓存层
+    private final BoardLayer boardLayer;
+
+    // 本帧锁定的画布
+    private Canvas canvas;
+
+    CanvasRenderTarget(int backgroundColor, int[] tileColors) {
+        this.backgroundColor = backgroundColor;
+        this.tileColors = tileColors;
+
+        textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        textPaint.setTypeface(Typeface.create(Typeface.DEFAULT, Typeface.BOLD));
+
+        borderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        borderPaint.setColor(0xFF666666);
+        borderPaint.setStrokeWidth(2);
+        borderPaint.setStyle(Paint.Style.STROKE);
+
+        // 粒子用drawPoints批量绘制，圆头的点即圆形粒子
+        particlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        particlePaint.setStrokeCap(Paint.Cap.ROUND);
+
+        dismissPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        fillPaint = new Paint();
+
+        tileSprites = new TileSpriteCache(tileColors);
+        boardLayer = new BoardLayer(backgroundColor, borderPaint);
+    }
+
+    /**
+     * 开始绘制新锁定的画布
+     */
+    void begin(Canvas canvas) {
+        this.canvas = canvas;
+    }
+
+    /**
+     * 结束本帧，画布提交后不再持有
+     */
+    void end() {
+        canvas = null;
+    }
+
+    /**
+     * 回收贴图和静态层，须在绘制线程停止之后调用
+     */
+    void release() {
+        tileSprites.release();
+        boardLayer.release();
+    }
+
+    @Override
+    public boolean prepareBoardLayer(int boardWidth, int boardHeight, int tileSize) {
+        // 瓷砖大小在surfaceChanged中改变，贴图和静态层在绘制线程重新生成
+        if (tileSprites.getTileSize() != tileSize) {
+            tileSprites.rebuild(tileSize);
+        }
+        return boardLayer.ensure(boardWidth, boardHeight, tileSize);
+    }
+
+    @Override
+    public void drawLayerCell(int row, int col, int content) {
+        boardLayer.drawCell(row, col, content, tileSprites);
+    }
+
+    @Override
+    public void drawBoardLayer(int x, int y) {
+        boardLayer.draw(canvas, x, y);
+    }
+
+    @Override
+    public void clear() {
+        canvas.drawColor(backgroundColor, PorterDuff.Mode.SRC);
+    }
+
+    @Override
+    public void drawTile(int type, float x, float y) {
+        // 预先画好的瓷砖贴图（彩色瓷砖、阴影和高光）
+        tileSprites.draw(canvas, type, x, y);
+    }
+
+    @Override
+    public void drawBorder(float left, float top, float right, float bottom) {
+        canvas.drawRect(left, top, right, bottom, borderPaint);
+    }
+
+    @Override
+    public void drawDismiss(int type, float centerX, float centerY, float radius, float rotation, float alpha) {
+        dismissPaint.setColor(tileColors[type]);
+        dismissPaint.setAlpha((int) (alpha * 255));
+        canvas.save();
+        canvas.rotate(rotation, centerX, centerY);
+        canvas.drawCircle(centerX, centerY, radius, dismissPaint);
+        canvas.restore();
+    }
+
+    @Override
+    public void drawPoints(float[] points, int offset, int length, float width, int color) {
+        particlePaint.setColor(color);
+        particlePaint.setStrokeWidth(width);
+        canvas.drawPoints(points, offset, length, particlePaint);
+    }
+
+    @Override
+    public void fillRect(float left, float top, float right, float bottom, int color) {
+        fillPaint.setColor(color);
+        canvas.drawRect(left, top, right, bottom, fillPaint);
+    }
+
+    @Override
+    public void drawText(HudFormatter text, float x, float y, float size, int color) {
+        textPaint.setTextSize(size);
+        textPaint.setColor(color);
+        canvas.drawText(text.getChars(), 0, text.length(), x, y, textPaint);
+    }
+
+    @Override
+    public float measureText(HudFormatter text, float size) {
+        textPaint.setTextSize(size);
+        return textPaint.measureText(text.getChars(), 0, text.length());
+    }
+
+    @Override
+    public void unionTextBounds(HudFormatter text, float x, float y, float size, Bounds bounds) {
+        textPaint.setTextSize(size);
+        textPaint.getFontMetrics(fontMetrics);
+        bounds.union((int) x, (int) (y + fontMetrics.top),
+                (int) Math.ceil(x + textPaint.measureText(text.getChars(), 0, text.length())),
+                (int) Math.ceil(y + fontMetrics.bottom));
+    }
+}
@@ -2,37 +2,70 @@ package com.gamedev.match3.view;
 
 import android.content.Context;
 import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.PorterDuff;
 import android.graphics.Rect;
-import android.graphics.Typeface;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.view.Choreographer;
 import android.view.MotionEvent;
+import android.view.Surface;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
+import com.gamedev.match3.engine.BoardFrame;
+import com.gamedev.match3.engine.FrameClock;
 import com.gamedev.match3.engine.GameEngine;
-import com.gamedev.match3.engine.Tile;
+import com.gamedev.match3.engine.GameStateStore;
+import com.gamedev.match3.engine.InputLatencyTracker;
+import com.gamedev.match3.engine.InputQueue;
+import com.gamedev.match3.engine.MoveLog;
+import com.gamedev.match3.engine.PerformanceMonitor;
+import com.gamedev.match3.engine.PerformanceMonitor.Phase;
+import com.gamedev.match3.engine.Trace;
 import com.gamedev.match3.effect.AnimationManager;
 import com.gamedev.match3.effect.FloatingTextSystem;
-import com.gamedev.match3.effect.Particle;
 import com.gamedev.match3.effect.ParticleSystem;
 import com.gamedev.match3.effect.SoundManager;
-import com.gamedev.match3.effect.TileAnimation;
+import com.gamedev.match3.render.Bounds;
+import com.gamedev.match3.render.FrameRenderer;
+import com.gamedev.match3.render.FrameUpdater;
 
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * 游戏视图 - 使用SurfaceView实现高效绘制
  */
-public class GameView extends SurfaceView implements SurfaceHolder.Callback, Runnable {
+public class GameView extends SurfaceView
+        implements SurfaceHolder.Callback, Runnable, Choreographer.FrameCallback, FrameUpdater.Listener {
     private SurfaceHolder surfaceHolder;
     private com.gamedev.match3.engine.OptimizedGameEngine gameEngine;
+    // 每帧各阶段的耗时统计，只在游戏循环线程使用
+    private final PerformanceMonitor monitor;
     private ParticleSystem particleSystem;
     private AnimationManager animationManager;
     private FloatingTextSystem floatingTextSystem;
     private SoundManager soundManager;
-    private Thread renderThread;
-    private boolean isRunning = false;
+    // 记录本局种子和每次交换，用于离线回放
+    private final MoveLog moveLog = new MoveLog();
+    // 暂停时保存对局，重新启动时恢复
+    private final GameStateStore stateStore;
+    // 游戏循环线程：处理输入、模拟和绘制，按vsync或睡眠节拍运行
+    private HandlerThread loopThread;
+    private Choreographer choreographer;
+    private volatile boolean isRunning = false;
+    private volatile boolean vsyncPacing = true;
+    private volatile int targetFrameRate = DEFAULT_FRAME_RATE;
+    private boolean surfaceReady = false;
+    private boolean paused = false;
+
+    private static final int BOARD_WIDTH = 6;
+    private static final int BOARD_HEIGHT = 8;
+    private static final String STATE_FILE = "game_state.bin";
+    // 模拟固定按120Hz推进，与绘制帧率无关
+    private static final int SIMULATION_RATE = 120;
+    private static final int DEFAULT_FRAME_RATE = 60;
 
     // 渲染参数
     private int tileSize = 60;
@@ -44,12 +77,19 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Run
     private int selectedCol = -1;
     private float lastTouchX = 0;
     private float lastTouchY = 0;
+    // 触摸手势转为带时间戳的命令，由游戏线程在每次循环开始时按顺序执行；引擎只由游戏线程修改
+    private static final int INPUT_QUEUE_SIZE = 64;
+    private final InputQueue inputQueue = new InputQueue(INPUT_QUEUE_SIZE);
+    private final InputLatencyTracker inputLatency = new InputLatencyTracker();
 
-    // 画笔对象（复用以减少GC）
-    private Paint tilePaint;
-    private Paint textPaint;
-    private Paint borderPaint;
-    private Paint particlePaint;
+    // 帧路径（输入、特效更新、链式反应、重绘区域、HUD、绘制顺序）与平台无关，绘制命令由Canvas目标执行
+    private static final int BACKGROUND_COLOR = 0xFFE8E8F0;
+    private FrameUpdater updater;
+    private FrameRenderer renderer;
+    private CanvasRenderTarget renderTarget;
+
+    // 本帧锁定的画布区域
+    private final Rect dirty = new Rect();
 
     // 颜色数组
     private int[] tileColors = {
@@ -62,321 +102,258 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Run
             0xFF00BCD4  // 青
     };
 
+    private final FrameClock frameClock = new FrameClock(SIMULATION_RATE, DEFAULT_FRAME_RATE);
     private float frameTime = 0;
     private int frameCount = 0;
-    private long lastFrameTime = 0;
 
     public GameView(Context context) {
         super(context);
         surfaceHolder = getHolder();
         surfaceHolder.addCallback(this);
-        gameEngine = new com.gamedev.match3.engine.OptimizedGameEngine();
+        stateStore = new GameStateStore(new File(context.getFilesDir(), STATE_FILE), BOARD_WIDTH, BOARD_HEIGHT);
+        gameEngine = new com.gamedev.match3.engine.OptimizedGameEngine(BOARD_WIDTH, BOARD_HEIGHT, stateStore);
+        gameEngine.setMoveLog(moveLog);
+        monitor = gameEngine.getPerformanceMonitor();
+        // 绘制读取引擎发布的棋盘帧，不直接读引擎内部的棋盘
+        gameEngine.enableFrames();
         particleSystem = new ParticleSystem();
-        animationManager = new AnimationManager();
+        animationManager = new AnimationManager(BOARD_WIDTH, BOARD_HEIGHT);
         floatingTextSystem = new FloatingTextSystem();
         soundManager = new SoundManager(context);
         soundManager.loadSounds(context);
 
-        initPaints();
+        updater = new FrameUpdater(gameEngine, inputQueue, inputLatency, frameClock, particleSystem,
+                animationManager, floatingTextSystem, tileColors, this);
+        renderer = new FrameRenderer(gameEngine, frameClock, inputLatency, particleSystem, animationManager,
+                floatingTextSystem);
+        renderTarget = new CanvasRenderTarget(BACKGROUND_COLOR, tileColors);
         setFocusable(true);
     }
 
     /**
-     * 初始化画笔对象（避免每帧创建新对象）
+     * 当前对局的记录
      */
-    private void initPaints() {
-        tilePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        tilePaint.setStyle(Paint.Style.FILL);
+    public MoveLog getMoveLog() {
+        return moveLog;
+    }
 
-        textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        textPaint.setColor(0xFF000000);
-        textPaint.setTextSize(32);
-        textPaint.setTypeface(Typeface.create(Typeface.DEFAULT, Typeface.BOLD));
+    /**
+     * 复制性能统计，须在pause之后调用；副本可以在后台线程导出
+     */
+    public PerformanceMonitor snapshotPerformanceStats() {
+        return gameEngine.snapshotPerformanceStats();
+    }
+
+    /**
+     * 设置目标帧率，例如60、90、120；系统支持时同时提示屏幕切换刷新率
+     */
+    public void setTargetFrameRate(int rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Invalid frame rate: " + rate);
+        }
+        targetFrameRate = rate;
+        if (surfaceReady) {
+            requestSurfaceFrameRate();
+        }
+    }
 
-        borderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        borderPaint.setColor(0xFF666666);
-        borderPaint.setStrokeWidth(2);
-        borderPaint.setStyle(Paint.Style.STROKE);
+    /**
+     * 关闭时改用睡眠节拍，例如在不按vsync限制帧率的测试环境中
+     */
+    public void setVsyncPacing(boolean enabled) {
+        vsyncPacing = enabled;
+    }
 
-        particlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private void requestSurfaceFrameRate() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            Surface surface = surfaceHolder.getSurface();
+            if (surface.isValid()) {
+                surface.setFrameRate(targetFrameRate, Surface.FRAME_RATE_COMPATIBILITY_DEFAULT);
+            }
+        }
     }
 
     @Override
     public void surfaceCreated(SurfaceHolder holder) {
-        isRunning = true;
-        renderThread = new Thread(this);
-        renderThread.start();
+        surfaceReady = true;
+        requestSurfaceFrameRate();
+        startRenderThread();
     }
 
     @Override
     public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
         // 根据屏幕大小调整瓷砖大小
         calculateTileSize(width, height);
+        renderer.invalidate();
     }
 
     @Override
     public void surfaceDestroyed(SurfaceHolder holder) {
-        isRunning = false;
-        try {
-            if (renderThread != null) {
-                renderThread.join();
-            }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-    }
-
-    @Override
-    public void run() {
-        long lastUpdateTime = System.currentTimeMillis();
-
-        while (isRunning) {
-            long currentTime = System.currentTimeMillis();
-            float deltaTime = Math.min((currentTime - lastUpdateTime) / 1000.0f, 0.016f); // 最多16ms
-            lastUpdateTime = currentTime;
-
-            // 更新游戏逻辑
-            update(deltaTime);
-
-            // 绘制
-            draw();
-
-            // 帧率限制
-            try {
-                Thread.sleep(16); // 目标60fps
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+        surfaceReady = false;
+        stopRenderThread();
+        // 绘制线程已停止，可以安全回收贴图和静态层
+        renderTarget.release();
     }
 
     /**
-     * 更新游戏状态
+     * 暂停：停止渲染线程后保存对局，保存时引擎不会被并发修改
+     * 已结束的对局删除存档，下次启动时开始新的一局
      */
-    private void update(float deltaTime) {
-        if (!gameEngine.isGameRunning()) return;
-
-        // 更新性能监控
-        gameEngine.updateFrameStats();
-
-        // 更新所有特效系统
-        particleSystem.update(deltaTime);
-        animationManager.update(deltaTime);
-        floatingTextSystem.update(deltaTime);
-
-        // 执行游戏逻辑
-        List<Tile> matches = gameEngine.findMatches();
-        if (!matches.isEmpty()) {
-            // 添加消除动画
-            for (Tile tile : matches) {
-                float x = boardStartX + tile.col * tileSize + tileSize / 2;
-                float y = boardStartY + tile.row * tileSize + tileSize / 2;
-                animationManager.addDismissAnimation(tile.row, tile.col, x, y);
-                particleSystem.createExplosion(x, y, tileColors[tile.type], 12);
-                
-                // 添加浮动分数文字
-                floatingTextSystem.addScore(x, y, 50);
-            }
-
-            // 播放音效
-            soundManager.playClearSound();
+    public void pause() {
+        paused = true;
+        stopRenderThread();
+        if (!gameEngine.isGameRunning()) {
+            stateStore.delete();
+            return;
         }
+        try {
+            stateStore.save(gameEngine);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-        gameEngine.update();
-
-        frameTime += deltaTime;
-        frameCount++;
+    public void resume() {
+        paused = false;
+        startRenderThread();
     }
 
     /**
-     * 绘制游戏画面
+     * 释放存档文件
      */
-    private void draw() {
-        Canvas canvas = null;
-        try {
-            canvas = surfaceHolder.lockCanvas();
-            if (canvas == null) return;
-
-            // 清除画布
-            canvas.drawColor(0xFFE8E8F0, PorterDuff.Mode.SRC);
-
-            // 绘制游戏板
-            drawBoard(canvas);
-
-            // 绘制瓷砖动画
-            drawTileAnimations(canvas);
-
-            // 绘制粒子效果
-            drawParticles(canvas);
-
-            // 绘制浮动文字
-            floatingTextSystem.draw(canvas);
-
-            // 绘制UI信息
-            drawUI(canvas);
-
-        } finally {
-            if (canvas != null) {
-                surfaceHolder.unlockCanvasAndPost(canvas);
-            }
-        }
+    public void release() {
+        stateStore.close();
     }
 
-    /**
-     * 绘制游戏板
-     */
-    private void drawBoard(Canvas canvas) {
-        int height = gameEngine.getBoardHeight();
-        int width = gameEngine.getBoardWidth();
-
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                Tile tile = gameEngine.getTile(row, col);
-                if (tile != null) {
-                    drawTile(canvas, tile);
-                }
-            }
-        }
+    private void startRenderThread() {
+        if (!surfaceReady || paused || loopThread != null) return;
+        isRunning = true;
+        renderer.invalidate();
+        loopThread = new HandlerThread("GameLoop", Process.THREAD_PRIORITY_DISPLAY);
+        loopThread.start();
+        new Handler(loopThread.getLooper()).post(this);
+    }
 
-        // 绘制选中框
-        if (selectedRow >= 0 && selectedCol >= 0) {
-            int x = boardStartX + selectedCol * tileSize;
-            int y = boardStartY + selectedRow * tileSize;
-            canvas.drawRect(x, y, x + tileSize, y + tileSize, borderPaint);
+    private void stopRenderThread() {
+        isRunning = false;
+        if (loopThread == null) return;
+        // 已排定的vsync回调随消息队列一起丢弃
+        loopThread.quitSafely();
+        try {
+            loopThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
         }
+        loopThread = null;
+        choreographer = null;
     }
 
     /**
-     * 绘制单个瓷砖
+     * 在游戏循环线程上启动：按vsync回调驱动，或在本线程中按睡眠节拍循环
      */
-    private void drawTile(Canvas canvas, Tile tile) {
-        int x = boardStartX + tile.col * tileSize;
-        int y = boardStartY + tile.row * tileSize;
-
-        if (tile.isEmpty()) {
-            // 绘制空瓷砖边框
-            canvas.drawRect(x, y, x + tileSize, y + tileSize, borderPaint);
+    @Override
+    public void run() {
+        frameClock.reset();
+        if (vsyncPacing) {
+            choreographer = Choreographer.getInstance();
+            choreographer.postFrameCallback(this);
             return;
         }
 
-        // 检查是否有动画
-        for (TileAnimation anim : animationManager.getAnimations()) {
-            if (anim.tileRow == tile.row && anim.tileCol == tile.col) {
-                // 使用动画位置绘制
-                x = (int) anim.currentX;
-                y = (int) anim.currentY;
-                break;
+        while (isRunning) {
+            long now = System.nanoTime();
+            if (frameClock.isFrameDue(now)) {
+                tick(now);
             }
-        }
-
-        // 绘制彩色瓷砖
-        tilePaint.setColor(tileColors[tile.type]);
-        tilePaint.setAlpha(255);
-        canvas.drawRoundRect(x + 2, y + 2, x + tileSize - 2, y + tileSize - 2,
-                8, 8, tilePaint);
-
-        // 绘制阴影和光影效果
-        borderPaint.setColor(0x33000000);
-        canvas.drawRoundRect(x + 2, y + 2, x + tileSize - 2, y + tileSize - 2,
-                8, 8, borderPaint);
-
-        // 绘制高光
-        Paint highlightPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        highlightPaint.setColor(0x33FFFFFF);
-        canvas.drawRoundRect(x + 4, y + 4, x + tileSize - 8, y + 8,
-                4, 4, highlightPaint);
-    }
-
-    /**
-     * 绘制瓷砖动画
-     */
-    private void drawTileAnimations(Canvas canvas) {
-        for (TileAnimation anim : animationManager.getAnimations()) {
-            if (anim.animationType == 1) { // 消除动画
-                Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-                paint.setAlpha((int) (anim.alpha * 255));
-
-                float centerX = anim.currentX;
-                float centerY = anim.currentY;
-
-                paint.setColor(tileColors[gameEngine.getTile(anim.tileRow, anim.tileCol).type]);
-
-                // 绘制旋转缩放效果
-                canvas.save();
-                canvas.rotate(anim.rotation, centerX, centerY);
-                canvas.drawCircle(centerX, centerY,
-                        (tileSize / 2) * anim.scale, paint);
-                canvas.restore();
+            // 睡到下一帧的排定时间，而不是固定睡16ms
+            long wait = frameClock.getNextFrameNanos() - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
             }
         }
     }
 
     /**
-     * 绘制粒子效果
+     * vsync回调，frameTimeNanos为本次vsync的时间；高于目标帧率的vsync被跳过
      */
-    private void drawParticles(Canvas canvas) {
-        List<Particle> particles = particleSystem.getParticles();
-        for (Particle p : particles) {
-            particlePaint.setColor(p.color);
-            particlePaint.setAlpha((int) (p.alpha * 255));
-
-            // 在游戏坐标系中绘制粒子
-            float screenX = boardStartX + p.x;
-            float screenY = boardStartY + p.y;
-
-            canvas.drawCircle(screenX, screenY, p.size, particlePaint);
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!isRunning) return;
+        choreographer.postFrameCallback(this);
+        if (frameClock.isFrameDue(frameTimeNanos)) {
+            tick(frameTimeNanos);
         }
     }
 
     /**
-     * 绘制UI信息
+     * 一帧：执行输入命令，按固定步长模拟，推进链式反应，再按插值系数绘制
      */
-    private void drawUI(Canvas canvas) {
-        textPaint.setColor(0xFF000000);
-        textPaint.setTextSize(32);
-
-        // 绘制分数和关卡
-        canvas.drawText("Score: " + gameEngine.getScore(), 20, 50, textPaint);
-        canvas.drawText("Level: " + gameEngine.getLevel(), 20, 100, textPaint);
-
-        // 绘制性能信息
-        textPaint.setTextSize(16);
-        textPaint.setColor(0xFF666666);
-        String perfStats = gameEngine.getPerformanceStats();
-        canvas.drawText(perfStats, 20, getHeight() - 40, textPaint);
-
-        // 绘制活跃对象统计
-        textPaint.setTextSize(14);
-        canvas.drawText("Particles: " + particleSystem.getParticleCount() + 
-                        " | Animations: " + animationManager.getAnimationCount(),
-                        20, getHeight() - 15, textPaint);
-
-        // 游戏结束
-        if (!gameEngine.isGameRunning()) {
-            drawGameOver(canvas);
+    private void tick(long frameNanos) {
+        long span = Trace.begin();
+        if (frameClock.getTargetRate() != targetFrameRate) {
+            frameClock.setTargetRate(targetFrameRate);
+            monitor.setTargetFrameRate(targetFrameRate);
+        }
+        monitor.beginFrame();
+        int steps = frameClock.advance(frameNanos);
+        updater.setLayout(tileSize, boardStartX, boardStartY);
+        updater.update(steps, frameClock.getStepSeconds(), System.nanoTime());
+        if (gameEngine.isGameRunning()) {
+            frameTime += steps * frameClock.getStepSeconds();
+            frameCount++;
         }
+        draw(frameClock.getAlpha() * frameClock.getStepSeconds());
+        monitor.endFrame();
+        Trace.end("GameView.tick", span);
     }
 
     /**
-     * 绘制游戏结束界面
+     * 绘制游戏画面：只锁定并重画本帧变化的区域，没有变化时不提交新帧
+     *
+     * @param lead 上一步模拟之后经过的时间（秒），粒子按速度外推这段时间后绘制
      */
-    private void drawGameOver(Canvas canvas) {
-        // 半透明黑色覆盖
-        Paint overlayPaint = new Paint();
-        overlayPaint.setColor(0x80000000);
-        canvas.drawRect(0, 0, getWidth(), getHeight(), overlayPaint);
-
-        // 绘制游戏结束文字
-        textPaint.setColor(0xFFFFFFFF);
-        textPaint.setTextSize(48);
-        String gameOverText = "Game Over!";
-        float x = (getWidth() - textPaint.measureText(gameOverText)) / 2;
-        canvas.drawText(gameOverText, x, getHeight() / 2 - 50, textPaint);
-
-        textPaint.setTextSize(32);
-        String scoreText = "Score: " + gameEngine.getScore();
-        x = (getWidth() - textPaint.measureText(scoreText)) / 2;
-        canvas.drawText(scoreText, x, getHeight() / 2 + 50, textPaint);
+    private void draw(float lead) {
+        Canvas canvas = null;
+        BoardFrame frame = null;
+        long span = Trace.begin();
+        monitor.beginPhase(Phase.DRAW);
+        try {
+            // 整帧使用同一个棋盘帧，不会画出执行了一半的交换或链式反应
+            frame = gameEngine.acquireFrame();
+
+            renderer.setLayout(getWidth(), getHeight(), tileSize, boardStartX, boardStartY);
+            if (!renderer.prepare(frame, lead, selectedRow, selectedCol, renderTarget)) return;
+
+            Bounds area = renderer.getDirty();
+            dirty.set(area.left, area.top, area.right, area.bottom);
+            canvas = surfaceHolder.lockCanvas(dirty);
+            if (canvas == null) {
+                // 没有拿到画布，已更新的静态层和记录的状态没有显示出去
+                renderer.invalidate();
+                return;
+            }
+
+            // lockCanvas可能扩大重绘区域；区域内按顺序全部重画，区域外保留上一帧的内容
+            renderTarget.begin(canvas);
+            renderer.render(frame, renderTarget);
+            renderTarget.end();
+        } finally {
+            monitor.endPhase(Phase.DRAW);
+            if (canvas != null) {
+                monitor.beginPhase(Phase.POST);
+                surfaceHolder.unlockCanvasAndPost(canvas);
+                monitor.endPhase(Phase.POST);
+                // 以提交画布的时间近似显示时间
+                if (frame != null) {
+                    inputLatency.onPresented(frame.getSequence(), System.nanoTime());
+                }
+            }
+            Trace.end("GameView.draw", span);
+        }
     }
 
     /**
@@ -391,6 +368,14 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Run
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        if (renderer.isGameOverShown()) {
+            // 结束画面上点击开始新的一局
+            if (event.getAction() == MotionEvent.ACTION_UP) {
+                inputQueue.offer(InputQueue.COMMAND_RESTART, 0, 0, 0, 0, System.nanoTime());
+            }
+            return true;
+        }
+
         float x = event.getX();
         float y = event.getY();
 
@@ -456,30 +441,29 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Run
             targetRow += (dy > 0) ? 1 : -1;
         }
 
-        // 执行交换
-        if (gameEngine.swapTiles(selectedRow, selectedCol, targetRow, targetCol)) {
-            // 播放匹配音效
-            soundManager.playMatchSound();
-
-            // 创建瓷砖移动动画
-            float startX = boardStartX + selectedCol * tileSize + tileSize / 2;
-            float startY = boardStartY + selectedRow * tileSize + tileSize / 2;
-            float targetX = boardStartX + targetCol * tileSize + tileSize / 2;
-            float targetY = boardStartY + targetRow * tileSize + tileSize / 2;
-
-            animationManager.addMoveAnimation(selectedRow, selectedCol, startX, startY, targetX, targetY);
-            animationManager.addMoveAnimation(targetRow, targetCol, targetX, targetY, startX, startY);
-
-            // 创建击中特效
-            Tile tile = gameEngine.getTile(selectedRow, selectedCol);
-            if (tile != null) {
-                float px = boardStartX + selectedCol * tileSize + tileSize / 2;
-                float py = boardStartY + selectedRow * tileSize + tileSize / 2;
-                particleSystem.createHitEffect(px, py, tileColors[tile.type]);
-            }
-        }
+        // 交给游戏线程执行，越界的目标由引擎拒绝；队列已满时丢弃
+        inputQueue.offer(InputQueue.COMMAND_SWAP, selectedRow, selectedCol, targetRow, targetCol,
+                System.nanoTime());
 
         selectedRow = -1;
         selectedCol = -1;
     }
+
+    /**
+     * 交换成功，在游戏线程调用
+     */
+    @Override
+    public void onSwapApplied() {
+        // 播放匹配音效
+        soundManager.playMatchSound();
+    }
+
+    /**
+     * 本帧有格子被消除，在游戏线程调用
+     */
+    @Override
+    public void onMatchesCleared() {
+        // 播放音效
+        soundManager.playClearSound();
+    }
 }
@@ -0,0 +1,91 @@
+package com.gamedev.match3.view;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * 瓷砖贴图缓存 - 每种瓷砖按当前瓷砖大小预先画成一张Bitmap，绘制时只需一次drawBitmap
+ *
+ * 瓷砖大小变化后调用rebuild重新生成；只能在绘制线程使用，避免回收正在绘制的Bitmap。
+ */
+class TileSpriteCache {
+    private final int[] colors;
+    private final Bitmap[] sprites;
+    private int tileSize = 0;
+
+    /**
+     * @param colors 各瓷砖类型的颜色，下标0为空瓷砖，不生成贴图
+     */
+    TileSpriteCache(int[] colors) {
+        this.colors = colors;
+        this.sprites = new Bitmap[colors.length];
+    }
+
+    /**
+     * 当前贴图对应的瓷砖大小，尚未生成时为0
+     */
+    int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * 按新的瓷砖大小重新生成全部贴图
+     */
+    void rebuild(int size) {
+        release();
+        if (size <= 0) return;
+
+        Paint fill = new Paint(Paint.ANTI_ALIAS_FLAG);
+        fill.setStyle(Paint.Style.FILL);
+
+        Paint shadow = new Paint(Paint.ANTI_ALIAS_FLAG);
+        shadow.setColor(0x33000000);
+        shadow.setStrokeWidth(2);
+        shadow.setStyle(Paint.Style.STROKE);
+
+        Paint highlight = new Paint(Paint.ANTI_ALIAS_FLAG);
+        highlight.setColor(0x33FFFFFF);
+
+        for (int type = 1; type < colors.length; type++) {
+            Bitmap sprite = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(sprite);
+
+            // 彩色瓷砖
+            fill.setColor(colors[type]);
+            canvas.drawRoundRect(2, 2, size - 2, size - 2, 8, 8, fill);
+
+            // 阴影和光影效果
+            canvas.drawRoundRect(2, 2, size - 2, size - 2, 8, 8, shadow);
+
+            // 高光
+            canvas.drawRoundRect(4, 4, size - 8, 8, 4, 4, highlight);
+
+            sprites[type] = sprite;
+        }
+        tileSize = size;
+    }
+
+    /**
+     * 在(x, y)处绘制指定类型的瓷砖
+     */
+    void draw(Canvas canvas, int type, float x, float y) {
+        Bitmap sprite = sprites[type];
+        if (sprite != null) {
+            canvas.drawBitmap(sprite, x, y, null);
+        }
+    }
+
+    /**
+     * 回收全部贴图
+     */
+    void release() {
+        for (int i = 0; i < sprites.length; i++) {
+            if (sprites[i] != null) {
+                sprites[i].recycle();
+                sprites[i] = null;
+            }
+        }
+        tileSize = 0;
+    }
+}
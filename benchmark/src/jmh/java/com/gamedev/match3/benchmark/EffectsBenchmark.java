@@ -0,0 +1,86 @@
+package com.gamedev.match3.benchmark;
+
+import com.gamedev.match3.effect.AnimationManager;
+import com.gamedev.match3.effect.ParticleBatcher;
+import com.gamedev.match3.effect.ParticleSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 特效系统基准 - 以deltaTime=0更新，保持活跃数量不变，只测量遍历和计算开销
+ */
+@State(Scope.Thread)
+public class EffectsBenchmark {
+    private static final int TILE_SIZE = 60;
+
+    @Param({"500", "5000"})
+    public int particles;
+
+    @Param({"48"})
+    public int animations;
+
+    private ParticleSystem particleSystem;
+    private ParticleBatcher particleBatcher;
+    private AnimationManager animationManager;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        particleSystem = new ParticleSystem();
+        int[] colors = {0xFFFF5252, 0xFF2196F3, 0xFFFFC107, 0xFF4CAF50, 0xFF9C27B0, 0xFF00BCD4};
+        int explosions = 0;
+        while (particleSystem.getParticleCount() < particles) {
+            particleSystem.createExplosion(100, 100, colors[explosions % colors.length], 10);
+            // 推进一点时间，让粒子分布在不同的透明度和大小级别
+            particleSystem.update(0.0005f);
+            explosions++;
+        }
+        particleBatcher = new ParticleBatcher(particleSystem.getCapacity());
+
+        animationManager = new AnimationManager(6, (animations + 5) / 6);
+        for (int i = 0; i < animations; i++) {
+            int row = i / 6;
+            int col = i % 6;
+            float x = col * TILE_SIZE;
+            float y = row * TILE_SIZE;
+            if (i % 2 == 0) {
+                animationManager.addMoveAnimation(row, col, x, y, x + TILE_SIZE, y);
+            } else {
+                animationManager.addDismissAnimation(row, col, x, y);
+            }
+        }
+    }
+
+    @Benchmark
+    public int particleUpdate() {
+        particleSystem.update(0f);
+        return particleSystem.getParticleCount();
+    }
+
+    @Benchmark
+    public int particleBatch() {
+        return particleBatcher.build(particleSystem, 20, 150, 0.004f);
+    }
+
+    @Benchmark
+    public int animationUpdate() {
+        animationManager.update(0f);
+        return animationManager.getAnimationCount();
+    }
+
+    @Benchmark
+    public int animationCellLookup() {
+        // 绘制时每格查询一次动画
+        int found = 0;
+        for (int row = 0; row < (animations + 5) / 6; row++) {
+            for (int col = 0; col < 6; col++) {
+                if (animationManager.hasAnimation(row, col)) found++;
+            }
+        }
+        return found;
+    }
+}
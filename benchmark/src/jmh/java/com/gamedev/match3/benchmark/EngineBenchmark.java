@@ -0,0 +1,155 @@
+package com.gamedev.match3.benchmark;
+
+import com.gamedev.match3.engine.BoardState;
+import com.gamedev.match3.engine.CellSet;
+import com.gamedev.match3.engine.GameEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 引擎基准 - 固定种子，棋盘大小可参数化
+ *
+ * 单步基准(removeMatches/fillBoard等)在每次调用前用Level.Invocation准备棋盘，
+ * 小棋盘上的绝对值会包含一部分计时开销，适合跨提交对比而非绝对耗时。
+ */
+@State(Scope.Thread)
+public class EngineBenchmark {
+    private static final long SEED = 20240601L;
+
+    @Param({"6x8", "64x64", "512x512"})
+    public String board;
+
+    private GameEngine engine;
+    private BoardState state;
+    private final int[] move = new int[4];
+
+    @Setup(Level.Trial)
+    public void createEngine() {
+        String[] size = board.split("x");
+        engine = new GameEngine(Integer.parseInt(size[0]), Integer.parseInt(size[1]), SEED);
+        state = engine.snapshot();
+    }
+
+    /**
+     * 棋盘无变化时的查找（GameView每帧的情况）
+     */
+    @Benchmark
+    public CellSet findMatchesUnchanged() {
+        return engine.findMatches();
+    }
+
+    /**
+     * 交换一步后，查找只重新扫描受影响的行列
+     */
+    @Benchmark
+    public CellSet findMatchesAfterSwap(SwappedBoard swapped) {
+        return engine.findMatches();
+    }
+
+    @Benchmark
+    public boolean swapTiles(SettledBoard settled) {
+        return engine.swapTiles(move[0], move[1], move[2], move[3]);
+    }
+
+    @Benchmark
+    public int removeMatches(SwappedBoard swapped) {
+        engine.removeMatches();
+        return engine.getScore();
+    }
+
+    @Benchmark
+    public CellSet fillBoard(ClearedBoard cleared) {
+        engine.fillBoard();
+        return engine.getChangedCells();
+    }
+
+    /**
+     * 压缩快照写入已有对象
+     */
+    @Benchmark
+    public BoardState snapshot() {
+        engine.snapshot(state);
+        return state;
+    }
+
+    @Benchmark
+    public long snapshotHash() {
+        return state.longHash();
+    }
+
+    /**
+     * 恢复快照，包括重建位棋盘和交换索引
+     */
+    @Benchmark
+    public GameEngine restore() {
+        engine.restore(state);
+        return engine;
+    }
+
+    /**
+     * 一步合法交换加完整的链式反应，准备棋盘不计入
+     */
+    @Benchmark
+    public int swapAndCascade(SettledBoard settled) {
+        engine.swapTiles(move[0], move[1], move[2], move[3]);
+        engine.update();
+        return engine.getScore();
+    }
+
+    /**
+     * 让棋盘回到稳定状态并取第一步合法交换；游戏结束时重开
+     */
+    private void prepareMove() {
+        // 单步基准可能留下空位或未消除的匹配
+        engine.fillBoard();
+        engine.update();
+        // 直接调用fillBoard不经过update的死局检查，无合法交换时同样重开
+        if (!engine.isGameRunning() || engine.getLegalMoves(move) == 0) {
+            engine.reset();
+            engine.getLegalMoves(move);
+        }
+    }
+
+    /**
+     * 棋盘稳定，move中放着一步合法交换
+     */
+    @State(Scope.Thread)
+    public static class SettledBoard {
+        @Setup(Level.Invocation)
+        public void setup(EngineBenchmark benchmark) {
+            benchmark.prepareMove();
+        }
+    }
+
+    /**
+     * 刚完成一步合法交换，棋盘上有待消除的匹配
+     */
+    @State(Scope.Thread)
+    public static class SwappedBoard {
+        @Setup(Level.Invocation)
+        public void setup(EngineBenchmark benchmark) {
+            benchmark.prepareMove();
+            int[] move = benchmark.move;
+            benchmark.engine.swapTiles(move[0], move[1], move[2], move[3]);
+        }
+    }
+
+    /**
+     * 匹配已移除，棋盘上有待下落和填充的空位
+     */
+    @State(Scope.Thread)
+    public static class ClearedBoard {
+        @Setup(Level.Invocation)
+        public void setup(EngineBenchmark benchmark) {
+            benchmark.prepareMove();
+            int[] move = benchmark.move;
+            benchmark.engine.swapTiles(move[0], move[1], move[2], move[3]);
+            benchmark.engine.removeMatches();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.gamedev.match3.benchmark;
+
+import com.gamedev.match3.engine.GameEngine;
+import com.gamedev.match3.engine.GameStateStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 存档基准 - 暂停时保存和启动时恢复的延迟，目标远低于1毫秒
+ */
+@State(Scope.Thread)
+public class GameStateStoreBenchmark {
+    private static final long SEED = 20240601L;
+
+    @Param({"6x8", "64x64"})
+    public String board;
+
+    private GameEngine engine;
+    private GameStateStore store;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String[] size = board.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        engine = new GameEngine(width, height, SEED);
+        file = File.createTempFile("match3-state", ".bin");
+        store = new GameStateStore(file, width, height);
+        store.save(engine);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.delete();
+    }
+
+    @Benchmark
+    public GameStateStore save() throws IOException {
+        store.save(engine);
+        return store;
+    }
+
+    @Benchmark
+    public boolean load() {
+        return store.load(engine);
+    }
+}
@@ -0,0 +1,72 @@
+package com.gamedev.match3.benchmark;
+
+import com.gamedev.match3.engine.ObjectPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * 对象池基准 - 在已有inUse个对象借出的情况下借还一个对象，以及多线程共享一个池
+ */
+@State(Scope.Thread)
+public class ObjectPoolBenchmark {
+    @Param({"0", "100", "1000"})
+    public int inUse;
+
+    private ObjectPool<float[]> pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = createPool(inUse + 16);
+        for (int i = 0; i < inUse; i++) {
+            pool.obtain();
+        }
+    }
+
+    @Benchmark
+    public float[] obtainRelease() {
+        float[] obj = pool.obtain();
+        pool.release(obj);
+        return obj;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public float[] obtainReleaseShared(SharedPool shared) {
+        float[] obj = shared.pool.obtain();
+        shared.pool.release(obj);
+        return obj;
+    }
+
+    /**
+     * 所有基准线程共享的池
+     */
+    @State(Scope.Benchmark)
+    public static class SharedPool {
+        ObjectPool<float[]> pool;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            pool = createPool(64);
+        }
+    }
+
+    private static ObjectPool<float[]> createPool(int size) {
+        return new ObjectPool<float[]>(size) {
+            @Override
+            protected float[] create() {
+                return new float[4];
+            }
+
+            @Override
+            protected void reset(float[] obj) {
+                obj[0] = 0;
+            }
+        };
+    }
+}
@@ -14,6 +14,8 @@ if [ -z "$1" ]; then
     echo "  ./build.sh release    - 构建Release版本 (含混淆优化)"
     echo "  ./build.sh install    - 安装到设备/模拟器"
     echo "  ./build.sh run        - 安装并运行游戏"
+    echo "  ./build.sh simulate   - 无界面批量对局模拟 (参数透传, 如 --bot greedy --games 100000)"
+    echo "  ./build.sh bench      - 运行JMH基准测试 (可选参数为基准名正则)"
     echo
     exit 0
 fi
@@ -65,6 +67,25 @@ case "$1" in
             exit 1
         fi
         ;;
+    simulate)
+        echo "正在运行对局模拟..."
+        shift
+        ./gradlew :simulator:run --args="$*"
+        ;;
+    bench)
+        echo "正在运行基准测试..."
+        if [ -n "$2" ]; then
+            ./gradlew :benchmark:jmh -PjmhInclude="$2"
+        else
+            ./gradlew :benchmark:jmh
+        fi
+        if [ $? -eq 0 ]; then
+            echo "结果位置：benchmark/build/results/jmh/results.json"
+        else
+            echo "基准测试失败！"
+            exit 1
+        fi
+        ;;
     *)
         echo "未知命令：$1"
         exit 1
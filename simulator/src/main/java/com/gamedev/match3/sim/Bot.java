@@ -0,0 +1,15 @@
+package com.gamedev.match3.sim;
+
+import com.gamedev.match3.engine.GameEngine;
+
+/**
+ * 自动对局机器人 - 每个工作线程持有自己的实例
+ */
+public interface Bot {
+    /**
+     * 选择一步交换，写入 out = {row1, col1, row2, col2}
+     *
+     * @return 没有可走的交换时返回false
+     */
+    boolean chooseMove(GameEngine engine, int[] out);
+}
@@ -0,0 +1,464 @@
+package com.gamedev.match3.sim;
+
+import com.gamedev.match3.engine.BoardFrame;
+import com.gamedev.match3.engine.BoardState;
+import com.gamedev.match3.engine.GameEngine;
+import com.gamedev.match3.engine.InputQueue;
+import com.gamedev.match3.engine.ObjectPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并发压力检查 - 在多个线程上反复调用引擎的无锁结构，检查没有丢失、重复或读到写了一半的数据，
+ * 发现问题时以非零状态退出
+ *
+ * 覆盖ObjectPool（多线程借出和归还）、GameEngine的三缓冲棋盘帧（一个线程发布、一个线程读取）
+ * 和InputQueue（一个线程写入、一个线程批量取出）。
+ *
+ * 用法：ConcurrencyCheck [--threads N] [--iterations N]
+ */
+public class ConcurrencyCheck {
+    private int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+    // 每个线程的操作次数
+    private int iterations = 200_000;
+    private int failures = 0;
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrencyCheck check = new ConcurrencyCheck();
+        check.parseArgs(args);
+        if (!check.run()) {
+            System.exit(1);
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (threads < 2 || iterations <= 0) {
+            throw new IllegalArgumentException("Invalid threads or iterations");
+        }
+    }
+
+    /**
+     * 依次运行各项检查
+     *
+     * @return 全部通过时返回true
+     */
+    public boolean run() throws InterruptedException {
+        System.out.printf("threads %d | iterations %d%n", threads, iterations);
+        checkPool(ObjectPool.Overflow.RETURN_NULL);
+        checkPool(ObjectPool.Overflow.CREATE);
+        checkFrames();
+        checkInputQueue();
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " check(s)");
+            return false;
+        }
+        return true;
+    }
+
+    private void fail(String message) {
+        failures++;
+        System.out.println("FAILED: " + message);
+    }
+
+    /**
+     * 启动全部线程并等待结束，线程在同一时刻开始以增加竞争
+     */
+    private static void runAll(List<? extends Worker> workers, CountDownLatch start) throws InterruptedException {
+        for (Worker worker : workers) {
+            worker.start();
+        }
+        start.countDown();
+        for (Worker worker : workers) {
+            worker.join();
+        }
+    }
+
+    // ---------------------------------------------------------------- ObjectPool
+
+    /**
+     * 多个线程同时借出和归还：同一对象不能同时借给两个线程，结束后所有对象都回到池中，统计一致
+     */
+    private void checkPool(ObjectPool.Overflow overflow) throws InterruptedException {
+        final AtomicInteger ids = new AtomicInteger();
+        // 容量小于所有线程同时持有的数量，空池、满池和RETURN_NULL都会发生
+        int hold = 8;
+        ObjectPool<PoolItem> pool = new ObjectPool<PoolItem>(4, threads * hold / 2, overflow) {
+            @Override
+            protected PoolItem create() {
+                return new PoolItem(ids.getAndIncrement());
+            }
+
+            @Override
+            protected void reset(PoolItem item) {
+            }
+        };
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<PoolWorker> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(new PoolWorker(i + 1, pool, hold, start));
+        }
+        long begin = System.nanoTime();
+        runAll(workers, start);
+        long elapsed = System.nanoTime() - begin;
+
+        String name = "ObjectPool(" + overflow.name().toLowerCase() + ")";
+        for (PoolWorker worker : workers) {
+            if (worker.error != null) fail(name + ": " + worker.error);
+        }
+        if (pool.getInUseSize() != 0) {
+            fail(name + ": in use " + pool.getInUseSize() + " after all objects were released");
+        }
+        if (pool.getPoolSize() > pool.getCapacity()) {
+            fail(name + ": pool holds " + pool.getPoolSize() + " objects, capacity " + pool.getCapacity());
+        }
+        // 对象总数不超过容量时队列不会放满，归还不应丢弃对象
+        if (overflow == ObjectPool.Overflow.RETURN_NULL && pool.getDiscards() != 0) {
+            fail(name + ": discarded " + pool.getDiscards() + " object(s) below capacity");
+        }
+        int free = pool.getFreeCount();
+        if (free != pool.getPoolSize()) {
+            fail(name + ": free " + free + " but pool size " + pool.getPoolSize());
+        }
+
+        // 取出全部空闲对象：都应直接命中，且各不相同
+        boolean[] seen = new boolean[ids.get()];
+        long misses = pool.getMisses();
+        for (int i = 0; i < free; i++) {
+            PoolItem item = pool.obtain();
+            if (item == null || seen[item.id]) {
+                fail(name + ": free list returned " + (item == null ? "null" : "object " + item.id + " twice"));
+                break;
+            }
+            seen[item.id] = true;
+        }
+        if (pool.getMisses() != misses) {
+            fail(name + ": free list lost " + (pool.getMisses() - misses) + " object(s)");
+        }
+
+        System.out.printf("%s: %d ops in %.0f ms | created %d | discarded %d | peak in use %d | capacity %d%n",
+                name, (long) threads * iterations * 2, elapsed / 1e6, pool.getCreations(),
+                pool.getDiscards(), pool.getPeakInUse(), pool.getCapacity());
+    }
+
+    // ---------------------------------------------------------------- BoardFrameBuffer
+
+    /**
+     * 写入线程轮流恢复几个不同的棋盘，每次恢复发布一帧；读取线程检查序号不倒退、
+     * 每一帧的棋盘与其序号对应的棋盘完全一致（没有写了一半的帧），写入结束后能读到最后一帧
+     */
+    private void checkFrames() throws InterruptedException {
+        int width = 6;
+        int height = 8;
+        int boards = 4;
+        GameEngine engine = new GameEngine(width, height, 42);
+        BoardState[] states = new BoardState[boards];
+        byte[][] expected = new byte[boards][width * height];
+        for (int i = 0; i < boards; i++) {
+            engine.reset(1000 + i);
+            states[i] = engine.snapshot();
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    expected[i][row * width + col] = (byte) engine.getType(row, col);
+                }
+            }
+        }
+        // 读取线程启动前开启三缓冲
+        engine.enableFrames();
+        long firstSequence = engine.getFrameSequence();
+
+        CountDownLatch start = new CountDownLatch(1);
+        FrameWriter writer = new FrameWriter(engine, states, start);
+        FrameReader reader = new FrameReader(engine, writer, expected, firstSequence,
+                firstSequence + iterations, start);
+        List<Worker> workers = new ArrayList<>(2);
+        workers.add(writer);
+        workers.add(reader);
+        long begin = System.nanoTime();
+        runAll(workers, start);
+        long elapsed = System.nanoTime() - begin;
+
+        for (Worker worker : workers) {
+            if (worker.error != null) fail("BoardFrameBuffer: " + worker.error);
+        }
+        System.out.printf("BoardFrameBuffer: %d frames published in %.0f ms | %d distinct frames read%n",
+                iterations, elapsed / 1e6, reader.distinct);
+    }
+
+    /**
+     * 依次恢复states中的棋盘，第i次恢复发布序号为起始序号+i+1的帧
+     */
+    private final class FrameWriter extends Worker {
+        private final GameEngine engine;
+        private final BoardState[] states;
+        volatile boolean done;
+
+        FrameWriter(GameEngine engine, BoardState[] states, CountDownLatch start) {
+            super("frame-writer", start);
+            this.engine = engine;
+            this.states = states;
+        }
+
+        @Override
+        void work() {
+            try {
+                for (int i = 0; i < iterations; i++) {
+                    engine.restore(states[i % states.length]);
+                }
+            } finally {
+                done = true;
+            }
+        }
+    }
+
+    /**
+     * 不断获取最新帧，按序号算出应有的棋盘并逐格比较
+     */
+    private static final class FrameReader extends Worker {
+        private final GameEngine engine;
+        private final FrameWriter writer;
+        private final byte[][] expected;
+        private final long firstSequence;
+        private final long lastSequence;
+        long distinct;
+
+        FrameReader(GameEngine engine, FrameWriter writer, byte[][] expected,
+                long firstSequence, long lastSequence, CountDownLatch start) {
+            super("frame-reader", start);
+            this.engine = engine;
+            this.writer = writer;
+            this.expected = expected;
+            this.firstSequence = firstSequence;
+            this.lastSequence = lastSequence;
+        }
+
+        @Override
+        void work() {
+            long previous = firstSequence;
+            while (error == null) {
+                // 先读结束标记：写入方结束前发布的帧此后一定能取到
+                boolean writerDone = writer.done;
+                BoardFrame frame = engine.acquireFrame();
+                long sequence = frame.getSequence();
+                if (sequence < previous) {
+                    error = "sequence went back from " + previous + " to " + sequence;
+                    return;
+                }
+                if (sequence != previous) {
+                    distinct++;
+                    checkFrame(frame, sequence);
+                    previous = sequence;
+                }
+                if (writerDone) {
+                    if (sequence != lastSequence && error == null) {
+                        error = "last frame " + lastSequence + " not visible, reader at " + sequence;
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void checkFrame(BoardFrame frame, long sequence) {
+            byte[] board = expected[(int) ((sequence - firstSequence - 1) % expected.length)];
+            int width = frame.getWidth();
+            for (int row = 0; row < frame.getHeight(); row++) {
+                for (int col = 0; col < width; col++) {
+                    if (frame.getType(row, col) != board[row * width + col]) {
+                        error = "torn frame " + sequence + " at (" + row + ", " + col + ")";
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- InputQueue
+
+    /**
+     * 生产者按顺序写入编号的命令，队列满时重试同一条；消费者检查命令按顺序到达、一条不少、
+     * 各参数与编号一致（没有读到写了一半的命令），丢弃计数等于生产者看到的失败次数
+     */
+    private void checkInputQueue() throws InterruptedException {
+        // 容量很小，生产者经常遇到队列已满
+        InputQueue queue = new InputQueue(8);
+        CountDownLatch start = new CountDownLatch(1);
+        CommandProducer producer = new CommandProducer(queue, start);
+        CommandConsumer consumer = new CommandConsumer(queue, start);
+        List<Worker> workers = new ArrayList<>(2);
+        workers.add(producer);
+        workers.add(consumer);
+        long begin = System.nanoTime();
+        runAll(workers, start);
+        long elapsed = System.nanoTime() - begin;
+
+        for (Worker worker : workers) {
+            if (worker.error != null) fail("InputQueue: " + worker.error);
+        }
+        if (queue.getDropped() != producer.rejected) {
+            fail("InputQueue: dropped " + queue.getDropped() + " but producer saw " + producer.rejected + " rejections");
+        }
+        if (queue.size() != 0) {
+            fail("InputQueue: " + queue.size() + " command(s) left after the consumer finished");
+        }
+        System.out.printf("InputQueue: %d commands in %.0f ms | rejected while full %d | batches %d%n",
+                iterations, elapsed / 1e6, producer.rejected, consumer.batches);
+    }
+
+    /**
+     * 第i条命令的各个参数都由i算出，消费者据此检查
+     */
+    private final class CommandProducer extends Worker {
+        private final InputQueue queue;
+        long rejected;
+
+        CommandProducer(InputQueue queue, CountDownLatch start) {
+            super("input-producer", start);
+            this.queue = queue;
+        }
+
+        @Override
+        void work() {
+            for (int i = 0; i < iterations; i++) {
+                while (!queue.offer(InputQueue.COMMAND_SWAP, i, ~i, i * 31, i ^ 0x5A5A5A5A, i * 7L)) {
+                    rejected++;
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    /**
+     * 反复取出，直到收到全部命令；整批取出和每次只取一个交替进行
+     */
+    private final class CommandConsumer extends Worker implements InputQueue.Handler {
+        private final InputQueue queue;
+        private int next = 0;
+        long batches;
+
+        CommandConsumer(InputQueue queue, CountDownLatch start) {
+            super("input-consumer", start);
+            this.queue = queue;
+        }
+
+        @Override
+        void work() {
+            while (next < iterations && error == null) {
+                int drained = (batches & 1) == 0 ? queue.drain(this) : queue.drain(this, 1);
+                if (drained > 0) {
+                    batches++;
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        @Override
+        public void onCommand(int command, int row1, int col1, int row2, int col2, long enqueueNanos) {
+            if (error != null) return;
+            int i = next++;
+            if (row1 != i) {
+                error = "expected command " + i + " but got " + row1;
+            } else if (command != InputQueue.COMMAND_SWAP || col1 != ~i || row2 != i * 31
+                    || col2 != (i ^ 0x5A5A5A5A) || enqueueNanos != i * 7L) {
+                error = "torn command " + i;
+            }
+        }
+    }
+
+    /**
+     * 池中的对象，owner为当前持有的线程编号，0表示在池中
+     */
+    private static final class PoolItem {
+        final int id;
+        final AtomicInteger owner = new AtomicInteger();
+
+        PoolItem(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * 压力线程的公共部分：等待统一开始，记录第一个错误
+     */
+    private abstract static class Worker extends Thread {
+        private final CountDownLatch start;
+        String error;
+
+        Worker(String name, CountDownLatch start) {
+            super(name);
+            this.start = start;
+        }
+
+        @Override
+        public final void run() {
+            try {
+                start.await();
+                work();
+            } catch (InterruptedException e) {
+                error = "interrupted";
+            } catch (RuntimeException e) {
+                error = e.toString();
+            }
+        }
+
+        abstract void work();
+    }
+
+    /**
+     * 每次借出1到hold个对象，标记持有者后再全部归还
+     */
+    private final class PoolWorker extends Worker {
+        private final int owner;
+        private final ObjectPool<PoolItem> pool;
+        private final PoolItem[] held;
+
+        PoolWorker(int owner, ObjectPool<PoolItem> pool, int hold, CountDownLatch start) {
+            super("pool-worker-" + owner, start);
+            this.owner = owner;
+            this.pool = pool;
+            this.held = new PoolItem[hold];
+        }
+
+        @Override
+        void work() {
+            int done = 0;
+            int round = owner;
+            while (done < iterations && error == null) {
+                round = round * 1103515245 + 12345;
+                int want = 1 + ((round >>> 16) % held.length);
+                int count = 0;
+                for (int i = 0; i < want; i++) {
+                    PoolItem item = pool.obtain();
+                    if (item == null) break;
+                    if (!item.owner.compareAndSet(0, owner)) {
+                        error = "object " + item.id + " handed out while held by worker " + item.owner.get();
+                    }
+                    held[count++] = item;
+                }
+                for (int i = 0; i < count; i++) {
+                    // 先清除持有者再归还，归还之后对象可能立即被其他线程借出
+                    held[i].owner.compareAndSet(owner, 0);
+                    pool.release(held[i]);
+                    held[i] = null;
+                }
+                done += Math.max(count, 1);
+            }
+        }
+    }
+}
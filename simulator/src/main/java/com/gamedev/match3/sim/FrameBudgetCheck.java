@@ -0,0 +1,300 @@
+package com.gamedev.match3.sim;
+
+import com.gamedev.match3.effect.AnimationManager;
+import com.gamedev.match3.effect.FloatingTextSystem;
+import com.gamedev.match3.effect.ParticleSystem;
+import com.gamedev.match3.engine.BoardFrame;
+import com.gamedev.match3.engine.FrameClock;
+import com.gamedev.match3.engine.HudFormatter;
+import com.gamedev.match3.engine.InputLatencyTracker;
+import com.gamedev.match3.engine.InputQueue;
+import com.gamedev.match3.engine.OptimizedGameEngine;
+import com.gamedev.match3.engine.PerformanceMonitor;
+import com.gamedev.match3.engine.PerformanceMonitor.Phase;
+import com.gamedev.match3.render.Bounds;
+import com.gamedev.match3.render.FrameRenderer;
+import com.gamedev.match3.render.FrameUpdater;
+import com.gamedev.match3.render.RenderTarget;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 帧循环分配预算检查 - 无界面地按GameView的顺序执行输入、引擎、特效更新和绘制，
+ * 预热后用线程分配计数器统计稳态下每帧分配的字节数，超过预算时以非零状态退出
+ *
+ * 与GameView共用FrameUpdater（输入、特效、浮动分数、链式反应）和FrameRenderer（重绘区域、HUD、
+ * 绘制顺序），只是绘制目标换成记录调用的DrawRecorder，音效回调为空。
+ *
+ * 用法：FrameBudgetCheck [--frames N] [--warmup N] [--budget BYTES] [--swap-every K]
+ *                        [--width W] [--height H] [--seed S]
+ */
+public class FrameBudgetCheck implements FrameUpdater.Listener {
+    private static final int SIMULATION_RATE = 120;
+    private static final int FRAME_RATE = 60;
+    private static final int TILE_SIZE = 60;
+    private static final int BOARD_START_X = 20;
+    private static final int BOARD_START_Y = 150;
+    private static final int SCREEN_WIDTH = 400;
+    private static final int SCREEN_HEIGHT = 800;
+
+    private static final int[] TILE_COLORS = {
+            0xFF000000, 0xFFFF5252, 0xFF2196F3, 0xFFFFC107, 0xFF4CAF50, 0xFF9C27B0, 0xFF00BCD4
+    };
+
+    private int frames = 3000;
+    private int warmup = 600;
+    // 每帧允许分配的字节数
+    private long budget = 4;
+    private int swapEvery = 30;
+    private int width = 6;
+    private int height = 8;
+    private long seed = 42;
+
+    private OptimizedGameEngine engine;
+    private PerformanceMonitor monitor;
+    private final ParticleSystem particleSystem = new ParticleSystem();
+    private AnimationManager animationManager;
+    private final FloatingTextSystem floatingTextSystem = new FloatingTextSystem();
+    private FrameUpdater updater;
+    private FrameRenderer renderer;
+    private final InputQueue inputQueue = new InputQueue(64);
+    private final InputLatencyTracker inputLatency = new InputLatencyTracker();
+    private final FrameClock frameClock = new FrameClock(SIMULATION_RATE, FRAME_RATE);
+    private final DrawRecorder recorder = new DrawRecorder();
+    private int[] legalMoves = new int[0];
+    private long nowNanos = 0;
+    private int games = 1;
+
+    public static void main(String[] args) {
+        FrameBudgetCheck check = new FrameBudgetCheck();
+        check.parseArgs(args);
+        if (!check.run()) {
+            System.exit(1);
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--frames":
+                    frames = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--budget":
+                    budget = Long.parseLong(value);
+                    break;
+                case "--swap-every":
+                    swapEvery = Integer.parseInt(value);
+                    break;
+                case "--width":
+                    width = Integer.parseInt(value);
+                    break;
+                case "--height":
+                    height = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (frames <= 0 || swapEvery <= 0) {
+            throw new IllegalArgumentException("Invalid frames or swap interval");
+        }
+    }
+
+    /**
+     * 预热后统计稳态分配
+     *
+     * @return 每帧平均分配不超过预算时返回true
+     */
+    public boolean run() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        engine = new OptimizedGameEngine(width, height);
+        animationManager = new AnimationManager(width, height);
+        engine.reset(seed);
+        engine.enableFrames();
+        monitor = engine.getPerformanceMonitor();
+        legalMoves = MoveBuffer.ensureCapacity(legalMoves, engine);
+        updater = new FrameUpdater(engine, inputQueue, inputLatency, frameClock, particleSystem,
+                animationManager, floatingTextSystem, TILE_COLORS, this);
+        updater.setLayout(TILE_SIZE, BOARD_START_X, BOARD_START_Y);
+        renderer = new FrameRenderer(engine, frameClock, inputLatency, particleSystem, animationManager,
+                floatingTextSystem);
+        renderer.setLayout(SCREEN_WIDTH, SCREEN_HEIGHT, TILE_SIZE, BOARD_START_X, BOARD_START_Y);
+
+        for (int i = 0; i < warmup; i++) {
+            frame(i);
+        }
+
+        int commands = recorder.commands;
+        int gamesBefore = games;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < frames; i++) {
+            frame(warmup + i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        double perFrame = allocated / (double) frames;
+        System.out.printf("frames %d (warm-up %d) | board %dx%d | new games %d | draw commands/frame %.1f | checksum %x%n",
+                frames, warmup, width, height, games - gamesBefore,
+                (recorder.commands - commands) / (double) frames, recorder.checksum);
+        System.out.printf("particle draw calls/frame max %d%n", monitor.getMaxParticleDrawCalls());
+        System.out.printf("allocated %d bytes | %.1f bytes/frame | budget %d bytes/frame%n",
+                allocated, perFrame, budget);
+        if (perFrame > budget) {
+            System.out.println("FAILED: steady-state allocation over budget");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 一帧，与GameView.tick相同：输入、按固定步长更新、链式反应、绘制
+     */
+    private void frame(int index) {
+        nowNanos += 1_000_000_000L / FRAME_RATE;
+        if (!engine.isGameRunning()) {
+            // 对局结束后开新局，保持每帧都有工作
+            engine.reset(seed + games++);
+        }
+        if (index % swapEvery == 0 && !engine.isCascading()) {
+            offerSwap(index / swapEvery);
+        }
+
+        monitor.beginFrame();
+        int steps = frameClock.advance(nowNanos);
+        updater.update(steps, frameClock.getStepSeconds(), nowNanos);
+        draw(frameClock.getAlpha() * frameClock.getStepSeconds());
+        monitor.endFrame();
+    }
+
+    /**
+     * 模拟触摸：从合法交换中轮流选一个写入输入队列
+     */
+    private void offerSwap(int turn) {
+        int count = engine.getLegalMoves(legalMoves);
+        if (count == 0) return;
+        int move = (turn % count) * 4;
+        inputQueue.offer(InputQueue.COMMAND_SWAP, legalMoves[move], legalMoves[move + 1],
+                legalMoves[move + 2], legalMoves[move + 3], nowNanos);
+    }
+
+    @Override
+    public void onSwapApplied() {
+    }
+
+    @Override
+    public void onMatchesCleared() {
+    }
+
+    /**
+     * 与GameView.draw相同的帧路径，绘制命令写入记录器；画布总能拿到，每帧都提交
+     */
+    private void draw(float lead) {
+        monitor.beginPhase(Phase.DRAW);
+        BoardFrame frame = engine.acquireFrame();
+        if (renderer.prepare(frame, lead, -1, -1, recorder)) {
+            renderer.render(frame, recorder);
+        }
+        monitor.endPhase(Phase.DRAW);
+        inputLatency.onPresented(frame.getSequence(), nowNanos);
+    }
+
+    /**
+     * 代替Canvas记录绘制命令，只累计命令数和校验和，避免绘制代码被优化掉
+     */
+    private static final class DrawRecorder implements RenderTarget {
+        int commands = 0;
+        long checksum = 0;
+        private int layerTileSize = 0;
+
+        @Override
+        public boolean prepareBoardLayer(int boardWidth, int boardHeight, int tileSize) {
+            if (tileSize == layerTileSize) return false;
+            layerTileSize = tileSize;
+            return true;
+        }
+
+        @Override
+        public void drawLayerCell(int row, int col, int content) {
+            add(row * 31 + col ^ content * 17);
+        }
+
+        @Override
+        public void drawBoardLayer(int x, int y) {
+            add(x ^ y * 31);
+        }
+
+        @Override
+        public void clear() {
+            add(0);
+        }
+
+        @Override
+        public void drawTile(int type, float x, float y) {
+            add(Float.floatToIntBits(x) ^ Float.floatToIntBits(y) * 31 ^ type);
+        }
+
+        @Override
+        public void drawBorder(float left, float top, float right, float bottom) {
+            fillRect(left, top, right, bottom, 0xFF666666);
+        }
+
+        @Override
+        public void drawDismiss(int type, float centerX, float centerY, float radius, float rotation, float alpha) {
+            add(Float.floatToIntBits(centerX) ^ Float.floatToIntBits(centerY) * 31
+                    ^ Float.floatToIntBits(radius) * 17 ^ Float.floatToIntBits(rotation) * 13
+                    ^ Float.floatToIntBits(alpha) * 7 ^ type);
+        }
+
+        @Override
+        public void drawPoints(float[] points, int offset, int length, float width, int color) {
+            long hash = Float.floatToIntBits(width) ^ color;
+            for (int i = offset; i < offset + length; i++) {
+                hash = hash * 31 + Float.floatToIntBits(points[i]);
+            }
+            add(hash);
+        }
+
+        @Override
+        public void fillRect(float left, float top, float right, float bottom, int color) {
+            add(Float.floatToIntBits(left) ^ Float.floatToIntBits(top) * 31
+                    ^ Float.floatToIntBits(right) * 17 ^ Float.floatToIntBits(bottom) * 13 ^ color);
+        }
+
+        @Override
+        public void drawText(HudFormatter text, float x, float y, float size, int color) {
+            char[] chars = text.getChars();
+            long hash = Float.floatToIntBits(x) ^ Float.floatToIntBits(y) * 31 ^ Float.floatToIntBits(size) * 17 ^ color;
+            for (int i = 0; i < text.length(); i++) {
+                hash = hash * 31 + chars[i];
+            }
+            add(hash);
+        }
+
+        @Override
+        public float measureText(HudFormatter text, float size) {
+            // 近似等宽字体
+            return text.length() * size * 0.5f;
+        }
+
+        @Override
+        public void unionTextBounds(HudFormatter text, float x, float y, float size, Bounds bounds) {
+            bounds.union((int) x, (int) (y - size), (int) Math.ceil(x + measureText(text, size)),
+                    (int) Math.ceil(y + size * 0.3f));
+        }
+
+        private void add(long value) {
+            commands++;
+            checksum = checksum * 0x9E3779B97F4A7C15L + value;
+        }
+    }
+}
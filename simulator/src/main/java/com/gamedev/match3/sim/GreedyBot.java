@@ -0,0 +1,41 @@
+package com.gamedev.match3.sim;
+
+import com.gamedev.match3.engine.GameEngine;
+
+import java.util.SplittableRandom;
+
+/**
+ * 贪心机器人 - 选择直接消除格子最多的交换，同分时随机
+ */
+public class GreedyBot implements Bot {
+    private final SplittableRandom random;
+    private int[] moves = new int[256];
+
+    public GreedyBot(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public boolean chooseMove(GameEngine engine, int[] out) {
+        moves = MoveBuffer.ensureCapacity(moves, engine);
+        int count = engine.getLegalMoves(moves);
+        if (count == 0) return false;
+
+        int best = -1;
+        int bestSize = 0;
+        int ties = 0;
+        for (int i = 0; i < count; i++) {
+            int size = engine.previewSwap(moves[i * 4], moves[i * 4 + 1], moves[i * 4 + 2], moves[i * 4 + 3]);
+            if (size > bestSize) {
+                best = i;
+                bestSize = size;
+                ties = 1;
+            } else if (size == bestSize && random.nextInt(++ties) == 0) {
+                // 蓄水池抽样，同分时等概率
+                best = i;
+            }
+        }
+        System.arraycopy(moves, best * 4, out, 0, 4);
+        return true;
+    }
+}
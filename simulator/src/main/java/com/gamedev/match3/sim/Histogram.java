@@ -0,0 +1,72 @@
+package com.gamedev.match3.sim;
+
+/**
+ * 定宽分桶直方图 - 单线程记录，结束后合并
+ */
+public class Histogram {
+    private final long bucketWidth;
+    private final long[] counts;
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public Histogram(long bucketWidth, int bucketCount) {
+        this.bucketWidth = bucketWidth;
+        // 最后一个桶收容所有超出范围的值
+        this.counts = new long[bucketCount + 1];
+    }
+
+    public void record(long value) {
+        int bucket = (int) Math.min(Math.max(value, 0) / bucketWidth, counts.length - 1);
+        counts[bucket]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(Histogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * 百分位数（取所在桶的下界，超出范围时返回最大值）
+     */
+    public long percentile(double p) {
+        if (count == 0) return 0;
+        long target = (long) Math.ceil(count * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length - 1; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.max(min, i * bucketWidth);
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getBucketCount(int bucket) {
+        return counts[bucket];
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+}
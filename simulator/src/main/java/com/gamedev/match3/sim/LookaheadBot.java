@@ -0,0 +1,79 @@
+package com.gamedev.match3.sim;
+
+import com.gamedev.match3.engine.BoardState;
+import com.gamedev.match3.engine.GameEngine;
+import com.gamedev.match3.engine.SearchBoard;
+
+import java.util.SplittableRandom;
+
+/**
+ * 前瞻机器人 - 在SearchBoard上推演两步：本步含链式反应的得分，加上下一步能达到的最好得分的一半
+ * 推演不模拟随机填充，消除后的空位保持为空
+ */
+public class LookaheadBot implements Bot {
+    private final SplittableRandom random;
+    private BoardState state;
+    private int[] moves;
+    private int[] followUps;
+    private SearchBoard root;
+    private SearchBoard child;
+    private SearchBoard scratch;
+
+    public LookaheadBot(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public boolean chooseMove(GameEngine engine, int[] out) {
+        int width = engine.getBoardWidth();
+        int height = engine.getBoardHeight();
+        if (root == null || state.getWidth() != width || state.getHeight() != height) {
+            state = new BoardState(width, height);
+            moves = new int[width * height * 2];
+            followUps = new int[width * height * 2];
+            root = new SearchBoard(width, height);
+            child = new SearchBoard(width, height);
+            scratch = new SearchBoard(width, height);
+        }
+        engine.snapshot(state);
+        root.load(state);
+        int count = root.listMoves(moves);
+        if (count == 0) return false;
+
+        int best = 0;
+        int bestValue = -1;
+        int ties = 0;
+        for (int i = 0; i < count; i++) {
+            child.copyFrom(root);
+            int value = child.play(moves[i], null) * 2 + bestFollowUp();
+            if (value > bestValue) {
+                best = i;
+                bestValue = value;
+                ties = 1;
+            } else if (value == bestValue && random.nextInt(++ties) == 0) {
+                best = i;
+            }
+        }
+
+        int cell = moves[best] >>> 1;
+        boolean vertical = (moves[best] & 1) != 0;
+        out[0] = cell / width;
+        out[1] = cell % width;
+        out[2] = vertical ? out[0] + 1 : out[0];
+        out[3] = vertical ? out[1] : out[1] + 1;
+        return true;
+    }
+
+    /**
+     * child上所有合法交换中，单步（含链式反应）能得到的最高分
+     */
+    private int bestFollowUp() {
+        int count = child.listMoves(followUps);
+        int best = 0;
+        for (int i = 0; i < count; i++) {
+            scratch.copyFrom(child);
+            best = Math.max(best, scratch.play(followUps[i], null));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,19 @@
+package com.gamedev.match3.sim;
+
+import com.gamedev.match3.engine.GameEngine;
+
+/**
+ * 合法交换缓冲区工具
+ */
+final class MoveBuffer {
+    private MoveBuffer() {
+    }
+
+    /**
+     * 确保缓冲区能放下棋盘上所有可能的交换（每格最多向右、向下各一个）
+     */
+    static int[] ensureCapacity(int[] moves, GameEngine engine) {
+        int needed = engine.getBoardWidth() * engine.getBoardHeight() * 2 * 4;
+        return moves.length >= needed ? moves : new int[needed];
+    }
+}
@@ -0,0 +1,26 @@
+package com.gamedev.match3.sim;
+
+import com.gamedev.match3.engine.GameEngine;
+
+import java.util.SplittableRandom;
+
+/**
+ * 随机机器人 - 在所有合法交换中均匀随机选择
+ */
+public class RandomBot implements Bot {
+    private final SplittableRandom random;
+    private int[] moves = new int[256];
+
+    public RandomBot(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public boolean chooseMove(GameEngine engine, int[] out) {
+        moves = MoveBuffer.ensureCapacity(moves, engine);
+        int count = engine.getLegalMoves(moves);
+        if (count == 0) return false;
+        System.arraycopy(moves, random.nextInt(count) * 4, out, 0, 4);
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+package com.gamedev.match3.sim;
+
+import com.gamedev.match3.engine.GameEngine;
+import com.gamedev.match3.engine.MoveLog;
+import com.gamedev.match3.engine.MoveReplayer;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 回放对局记录 - 核对分数和棋盘哈希，重复回放用于对比改动前后的耗时
+ */
+public class Replay {
+    private Replay() {
+    }
+
+    /**
+     * @return 分数和棋盘都与记录一致时返回true
+     */
+    public static boolean run(String path, int repeat) throws IOException {
+        MoveLog log;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+            log = MoveLog.readFrom(in);
+        }
+
+        GameEngine engine = MoveReplayer.replay(log);
+        long start = System.nanoTime();
+        for (int i = 1; i < repeat; i++) {
+            MoveReplayer.replay(log, engine);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("board=%dx%d seed=%d moves=%d%n",
+                log.getWidth(), log.getHeight(), log.getSeed(), log.getMoveCount());
+        boolean scoreMatches = log.getScore() == engine.getScore();
+        System.out.printf("score recorded %d | replayed %d | %s%n", log.getScore(), engine.getScore(),
+                scoreMatches ? "match" : "MISMATCH");
+        long boardHash = engine.getBoardHash();
+        boolean boardMatches = !log.hasBoardHash() || log.getBoardHash() == boardHash;
+        if (log.hasBoardHash()) {
+            System.out.printf("board recorded %016x | replayed %016x | %s%n", log.getBoardHash(), boardHash,
+                    boardMatches ? "match" : "MISMATCH");
+        } else {
+            System.out.printf("board replayed %016x | not recorded (version 1 log)%n", boardHash);
+        }
+        if (repeat > 1) {
+            System.out.printf("%d replays in %.3f s | %.0f moves/s%n", repeat - 1, seconds,
+                    (repeat - 1) * (double) log.getMoveCount() / seconds);
+        }
+        return scoreMatches && boardMatches;
+    }
+}
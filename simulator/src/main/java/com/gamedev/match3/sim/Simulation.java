@@ -0,0 +1,216 @@
+package com.gamedev.match3.sim;
+
+import com.gamedev.match3.engine.GameEngine;
+import com.gamedev.match3.engine.MoveLog;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无界面对局模拟 - 每个工作线程一个GameEngine，用机器人跑大量对局并统计吞吐量和分布
+ *
+ * 用法：Simulation [--games N] [--bot random|greedy|lookahead|solver] [--threads K]
+ *                  [--width W] [--height H] [--max-moves M] [--seed S] [--record FILE]
+ *       Simulation --replay FILE [--repeat N]
+ */
+public class Simulation {
+    /**
+     * 机器人类型
+     */
+    public enum BotType {
+        RANDOM, GREEDY, LOOKAHEAD, SOLVER;
+
+        public Bot create(long seed) {
+            switch (this) {
+                case RANDOM:
+                    return new RandomBot(seed);
+                case GREEDY:
+                    return new GreedyBot(seed);
+                case LOOKAHEAD:
+                    return new LookaheadBot(seed);
+                default:
+                    return new SolverBot();
+            }
+        }
+    }
+
+    private static final int SCORE_BUCKET = 250;
+    private static final int SCORE_BUCKETS = 400;
+    private static final int CASCADE_BUCKETS = 32;
+
+    private long games = 100_000;
+    private BotType botType = BotType.GREEDY;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int width = 6;
+    private int height = 8;
+    private int maxMoves = 1000;
+    private long seed = 42;
+    // 保存0号工作线程最后一局的记录
+    private String recordPath = null;
+    private String replayPath = null;
+    private int repeat = 1;
+
+    // 运行结果
+    private final Histogram scores = new Histogram(SCORE_BUCKET, SCORE_BUCKETS);
+    private final Histogram cascades = new Histogram(1, CASCADE_BUCKETS);
+    private final Histogram movesPerGame = new Histogram(1, 1024);
+    private long elapsedNanos = 0;
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        Simulation simulation = new Simulation();
+        simulation.parseArgs(args);
+        if (simulation.replayPath != null) {
+            // 分数或棋盘与记录不一致时以非零状态退出
+            if (!Replay.run(simulation.replayPath, simulation.repeat)) {
+                System.exit(1);
+            }
+            return;
+        }
+        simulation.run();
+        simulation.printReport();
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games":
+                    games = Long.parseLong(value);
+                    break;
+                case "--bot":
+                    botType = BotType.valueOf(value.toUpperCase());
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--width":
+                    width = Integer.parseInt(value);
+                    break;
+                case "--height":
+                    height = Integer.parseInt(value);
+                    break;
+                case "--max-moves":
+                    maxMoves = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--record":
+                    recordPath = value;
+                    break;
+                case "--replay":
+                    replayPath = value;
+                    break;
+                case "--repeat":
+                    repeat = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    /**
+     * 在所有工作线程上跑完全部对局
+     */
+    public void run() throws InterruptedException, IOException {
+        AtomicLong nextGame = new AtomicLong();
+        List<Worker> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Worker(i, nextGame));
+        }
+
+        long start = System.nanoTime();
+        for (Worker worker : workers) {
+            worker.start();
+        }
+        for (Worker worker : workers) {
+            worker.join();
+        }
+        elapsedNanos = System.nanoTime() - start;
+
+        if (recordPath != null) {
+            try (OutputStream out = new FileOutputStream(recordPath)) {
+                workers.get(0).moveLog.writeTo(out);
+            }
+        }
+
+        for (Worker worker : workers) {
+            scores.merge(worker.scores);
+            cascades.merge(worker.cascades);
+            movesPerGame.merge(worker.movesPerGame);
+        }
+    }
+
+    private void printReport() {
+        double seconds = elapsedNanos / 1e9;
+        long totalMoves = Math.round(movesPerGame.getMean() * movesPerGame.getCount());
+        System.out.printf("bot=%s board=%dx%d threads=%d games=%d%n",
+                botType.name().toLowerCase(), width, height, threads, scores.getCount());
+        System.out.printf("time %.2f s | %.0f games/s | %.0f moves/s%n",
+                seconds, scores.getCount() / seconds, totalMoves / seconds);
+        printDistribution("score", scores);
+        printDistribution("moves/game", movesPerGame);
+        printDistribution("cascade length", cascades);
+
+        System.out.println("cascade length histogram:");
+        for (int depth = 0; depth <= CASCADE_BUCKETS; depth++) {
+            long count = cascades.getBucketCount(depth);
+            if (count == 0) continue;
+            System.out.printf("  %s%-3d %10d  %6.2f%%%n", depth == CASCADE_BUCKETS ? ">=" : "",
+                    depth, count, count * 100.0 / cascades.getCount());
+        }
+    }
+
+    private static void printDistribution(String name, Histogram histogram) {
+        System.out.printf("%s: mean %.1f | min %d | p50 %d | p90 %d | p99 %d | max %d%n",
+                name, histogram.getMean(), histogram.getMin(), histogram.percentile(50),
+                histogram.percentile(90), histogram.percentile(99), histogram.getMax());
+    }
+
+    /**
+     * 工作线程 - 独占一个引擎和一个机器人，从共享计数器领取对局
+     */
+    private class Worker extends Thread {
+        private final AtomicLong nextGame;
+        private final GameEngine engine;
+        private final Bot bot;
+        private final Histogram scores = new Histogram(SCORE_BUCKET, SCORE_BUCKETS);
+        private final Histogram cascades = new Histogram(1, CASCADE_BUCKETS);
+        private final Histogram movesPerGame = new Histogram(1, 1024);
+        private final MoveLog moveLog;
+
+        Worker(int index, AtomicLong nextGame) {
+            super("sim-worker-" + index);
+            this.nextGame = nextGame;
+            this.engine = new GameEngine(width, height, seed * 31 + index);
+            this.bot = botType.create(seed * 31 + index);
+            this.moveLog = recordPath != null && index == 0 ? new MoveLog() : null;
+            engine.setMoveLog(moveLog);
+        }
+
+        @Override
+        public void run() {
+            int[] move = new int[4];
+            boolean first = true;
+            while (nextGame.getAndIncrement() < games) {
+                if (!first) engine.reset();
+                first = false;
+
+                int played = 0;
+                while (engine.isGameRunning() && played < maxMoves && bot.chooseMove(engine, move)) {
+                    if (!engine.swapTiles(move[0], move[1], move[2], move[3])) break;
+                    engine.update();
+                    cascades.record(engine.getCascadeDepth());
+                    played++;
+                }
+                scores.record(engine.getScore());
+                movesPerGame.record(played);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.gamedev.match3.sim;
+
+import com.gamedev.match3.engine.BoardState;
+import com.gamedev.match3.engine.GameEngine;
+import com.gamedev.match3.engine.Solver;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 搜索机器人 - 每步用Solver在固定时间内做期望最大化搜索
+ */
+public class SolverBot implements Bot {
+    private static final long BUDGET_NANOS = 5_000_000L;
+    private static final int TABLE_BITS = 16;
+    private static final int SAMPLES = 3;
+
+    private final Solver solver = new Solver(ForkJoinPool.commonPool(), TABLE_BITS, SAMPLES);
+    private BoardState state;
+
+    @Override
+    public boolean chooseMove(GameEngine engine, int[] out) {
+        if (state == null) {
+            state = engine.snapshot();
+        } else {
+            engine.snapshot(state);
+        }
+        return solver.findBestMove(state, BUDGET_NANOS, out);
+    }
+}